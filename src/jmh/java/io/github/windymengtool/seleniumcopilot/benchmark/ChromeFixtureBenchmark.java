@@ -0,0 +1,71 @@
+package io.github.windymengtool.seleniumcopilot.benchmark;
+
+import cn.hutool.core.util.StrUtil;
+import io.github.windymengtool.seleniumcopilot.ChromeEngine;
+import io.github.windymengtool.seleniumcopilot.ChromeProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 真实headless Chrome + 磁盘上的fixture页面,默认不运行;需要指定chromedriver路径:
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="ChromeFixtureBenchmark -jvmArgsAppend -Dbenchmark.chrome.driver=/path/to/chromedriver"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ChromeFixtureBenchmark {
+    @Param({"false", "true"})
+    public boolean observe;
+
+    private ChromeEngine chromeEngine;
+    private String fixtureUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        String driver = System.getProperty("benchmark.chrome.driver");
+        if (StrUtil.isBlank(driver)) throw new IllegalStateException("-Dbenchmark.chrome.driver is required");
+        this.fixtureUrl = new File(getClass().getResource("/fixtures/delayed-list.html").toURI()).toURI().toString();
+        this.chromeEngine = new ChromeEngine(ChromeProperties.builder()
+                .driver(driver)
+                .useUserDataCopy(false)
+                .crxList(new ArrayList<>())
+                .arguments(new ArrayList<String>() {{
+                    add("--headless=new");
+                    add("--no-sandbox");
+                    add("--disable-dev-shm-usage");
+                    add("--remote-allow-origins=*");
+                }})
+                .build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (chromeEngine != null) chromeEngine.quit();
+    }
+
+    @Benchmark
+    public Object jumpAndFind() {
+        chromeEngine.jumper().url(fixtureUrl).consumerIntervalLog(null).consumerAfterJump(null).jump();
+        return chromeEngine.finder().byLocator(By.cssSelector("#late")).observe(observe).maxMs(5000L)
+                .consumerBeforeLoop(null).consumerIntervalLog(null).consumerAfterLoop(null)
+                .findOne();
+    }
+}
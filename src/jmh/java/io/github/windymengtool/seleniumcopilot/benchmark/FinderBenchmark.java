@@ -0,0 +1,58 @@
+package io.github.windymengtool.seleniumcopilot.benchmark;
+
+import io.github.windymengtool.seleniumcopilot.ChromeEngine;
+import io.github.windymengtool.seleniumcopilot.ChromeProperties;
+import io.github.windymengtool.seleniumcopilot.Finder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finder.loop自身的开销:LOCATOR/JS × ONE/LIST,元素立即可见,对比默认日志consumer开启与关闭
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FinderBenchmark {
+    @Param({"LOCATOR", "JS"})
+    public String condition;
+    @Param({"ONE", "LIST"})
+    public String findType;
+    @Param({"false", "true"})
+    public boolean logging;
+
+    private ChromeEngine chromeEngine;
+
+    @Setup
+    public void setup() {
+        FixtureDriver fixture = new FixtureDriver(0, 20);
+        this.chromeEngine = new ChromeEngine(ChromeProperties.builder().useUserDataCopy(false).build(), fixture.driver());
+    }
+
+    @Benchmark
+    public Object loop() {
+        Finder finder = chromeEngine.finder();
+        if (!logging) finder.consumerBeforeLoop(null).consumerIntervalLog(null).consumerAfterLoop(null);
+        boolean one = "ONE".equals(findType);
+        if ("LOCATOR".equals(condition)) {
+            finder.byLocator(By.cssSelector(".row"));
+        } else {
+            finder.byJavaScript(one ? "return document.querySelector('.row')" : "return document.querySelectorAll('.row')");
+        }
+        return one ? finder.findOne() : finder.findList();
+    }
+}
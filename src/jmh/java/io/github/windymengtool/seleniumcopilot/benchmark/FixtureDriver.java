@@ -0,0 +1,160 @@
+package io.github.windymengtool.seleniumcopilot.benchmark;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 进程内的WebDriver/JavascriptExecutor替身:不启动浏览器,元素在{@link #appear(long)}指定的时间之后出现,
+ * 每次调用可模拟固定的往返延迟,用于测量库自身的开销
+ */
+public class FixtureDriver implements InvocationHandler {
+    private final long roundTripNanos;
+    private final List<WebElement> elements = new ArrayList<>();
+    private final AtomicLong calls = new AtomicLong();
+    private volatile long appearAtNanos = System.nanoTime();
+    private final WebDriver driver;
+
+    public FixtureDriver(long roundTripMicros, int elementCount) {
+        this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        for (int i = 0; i < elementCount; i++) {
+            elements.add((WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebElement.class}, new ElementHandler(i)));
+        }
+        this.driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.class, JavascriptExecutor.class}, this);
+    }
+
+    public WebDriver driver() {
+        return driver;
+    }
+
+    /**
+     * 元素在afterMs毫秒之后出现
+     */
+    public void appear(long afterMs) {
+        this.appearAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(afterMs);
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    private boolean visible() {
+        return System.nanoTime() >= appearAtNanos;
+    }
+
+    private void roundTrip() {
+        calls.incrementAndGet();
+        if (roundTripNanos > 0) LockSupport.parkNanos(roundTripNanos);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "findElements":
+                roundTrip();
+                return visible() ? new ArrayList<>(elements) : new ArrayList<>();
+            case "findElement":
+                roundTrip();
+                if (!visible()) throw new NoSuchElementException("fixture element not present yet");
+                return elements.get(0);
+            case "executeScript":
+                roundTrip();
+                return executeScript(String.valueOf(args[0]));
+            case "executeAsyncScript":
+                roundTrip();
+                long waitNanos = appearAtNanos - System.nanoTime();
+                if (waitNanos > 0) LockSupport.parkNanos(waitNanos);
+                return new ArrayList<>(elements);
+            case "get":
+            case "navigate":
+                roundTrip();
+                return null;
+            case "getWindowHandles":
+                roundTrip();
+                return Collections.singleton("fixture");
+            case "getCurrentUrl":
+                return "about:blank";
+            case "manage":
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.Options.class}, this);
+            case "timeouts":
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.Timeouts.class}, this);
+            case "implicitlyWait":
+            case "pageLoadTimeout":
+            case "scriptTimeout":
+            case "setScriptTimeout":
+                roundTrip();
+                return proxy;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FixtureDriver";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按脚本特征返回结果:readyState类脚本返回true,querySelector返回单个元素,其余返回元素列表或按key组织的元素表
+     */
+    private Object executeScript(String script) {
+        if (script.contains("readyState")) return true;
+        if (script.contains("__copilotLeaving")) return script.startsWith("return") ? (Object) true : "about:blank";
+        if (script.contains("__copilotGeneration")) return "FIXTURE";
+        if (script.contains("var probes=")) {
+            Map<String, Object> out = new HashMap<>();
+            int index = script.indexOf("probes[\"");
+            while (index >= 0) {
+                int end = script.indexOf("\"]", index);
+                out.put(script.substring(index + 8, end), visible() ? new ArrayList<>(elements) : new ArrayList<>());
+                index = script.indexOf("probes[\"", end);
+            }
+            return out;
+        }
+        if (!visible()) return script.contains("querySelector(") ? null : new ArrayList<>();
+        return script.contains("querySelector(") ? elements.get(0) : new ArrayList<>(elements);
+    }
+
+    private static class ElementHandler implements InvocationHandler {
+        private final int index;
+
+        private ElementHandler(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getText":
+                    return "row-" + index;
+                case "getTagName":
+                    return "div";
+                case "isDisplayed":
+                case "isEnabled":
+                    return true;
+                case "hashCode":
+                    return index;
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "FixtureElement-" + index;
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.windymengtool.seleniumcopilot.benchmark;
+
+import io.github.windymengtool.seleniumcopilot.ChromeEngine;
+import io.github.windymengtool.seleniumcopilot.ChromeProperties;
+import io.github.windymengtool.seleniumcopilot.Jumper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jumper.jump的调度开销(间隔日志任务、超时设置、跳转),driver的get立即返回
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JumperBenchmark {
+    @Param({"false", "true"})
+    public boolean logging;
+
+    private ChromeEngine chromeEngine;
+
+    @Setup
+    public void setup() {
+        FixtureDriver fixture = new FixtureDriver(0, 1);
+        this.chromeEngine = new ChromeEngine(ChromeProperties.builder().useUserDataCopy(false).build(), fixture.driver());
+    }
+
+    @Benchmark
+    public void jump() {
+        Jumper jumper = chromeEngine.jumper().url("https://example.com/fixture");
+        if (!logging) jumper.consumerIntervalLog(null).consumerAfterJump(null);
+        jumper.jump();
+    }
+}
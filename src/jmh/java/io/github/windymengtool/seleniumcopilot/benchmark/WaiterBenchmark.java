@@ -0,0 +1,51 @@
+package io.github.windymengtool.seleniumcopilot.benchmark;
+
+import io.github.windymengtool.seleniumcopilot.ChromeEngine;
+import io.github.windymengtool.seleniumcopilot.ChromeProperties;
+import io.github.windymengtool.seleniumcopilot.PollingStrategy;
+import io.github.windymengtool.seleniumcopilot.Waiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waiter.until的响应性:条件在conditionAfterMs之后成立,测量从开始等待到返回的时间,越接近conditionAfterMs越好
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WaiterBenchmark {
+    @Param({"0", "20", "200"})
+    public long conditionAfterMs;
+    @Param({"fixed", "backoff"})
+    public String strategy;
+
+    private ChromeEngine chromeEngine;
+
+    @Setup
+    public void setup() {
+        FixtureDriver fixture = new FixtureDriver(0, 1);
+        this.chromeEngine = new ChromeEngine(ChromeProperties.builder().useUserDataCopy(false).build(), fixture.driver());
+    }
+
+    @Benchmark
+    public boolean until() {
+        long readyAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(conditionAfterMs);
+        Waiter waiter = chromeEngine.waiter().maxMs(5000L).consumerBeforeWait(null).consumerAfterWait(null);
+        waiter.pollingStrategy("fixed".equals(strategy) ? PollingStrategy.fixed(100L) : PollingStrategy.backoff());
+        return waiter.until(() -> System.nanoTime() >= readyAt);
+    }
+}
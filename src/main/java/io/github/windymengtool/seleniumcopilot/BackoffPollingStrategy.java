@@ -0,0 +1,65 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 指数退避轮询:第一次探测后很快重试,之后间隔按倍数增长至上限,并加入随机抖动避免大量等待同时打到driver;
+ * 最后一次等待会截断到截止时间,保证在maxMs时刻还有一次探测
+ */
+@Getter
+public class BackoffPollingStrategy implements PollingStrategy {
+    /**
+     * 第一次探测失败后的等待时间
+     */
+    private Long firstDelayMs = 10L;
+    private Long initialMs = 50L;
+    private Double multiplier = 2D;
+    private Long maxIntervalMs = 1000L;
+    /**
+     * 抖动比例,0~1
+     */
+    private Double jitter = 0.2D;
+
+    public BackoffPollingStrategy firstDelayMs(Long firstDelayMs) {
+        this.firstDelayMs = firstDelayMs;
+        return this;
+    }
+
+    public BackoffPollingStrategy initialMs(Long initialMs) {
+        this.initialMs = initialMs;
+        return this;
+    }
+
+    public BackoffPollingStrategy multiplier(Double multiplier) {
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public BackoffPollingStrategy maxIntervalMs(Long maxIntervalMs) {
+        this.maxIntervalMs = maxIntervalMs;
+        return this;
+    }
+
+    public BackoffPollingStrategy jitter(Double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    @Override
+    public long nextDelayMs(int attempt, long elapsedMs, long maxMs) {
+        long delay;
+        if (attempt <= 1) {
+            delay = firstDelayMs;
+        } else {
+            double grown = initialMs * Math.pow(multiplier, attempt - 2);
+            delay = (long) Math.min(grown, (double) maxIntervalMs);
+            if (jitter != null && jitter > 0) {
+                long spread = (long) (delay * Math.min(jitter, 1D));
+                delay += spread == 0 ? 0 : ThreadLocalRandom.current().nextLong(-spread, spread + 1);
+            }
+        }
+        return Math.max(0L, Math.min(delay, maxMs - elapsedMs));
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 资源拦截规则,会话启动时通过DevTools应用
+ */
+@Data
+@Builder
+public class BlockingRules {
+    /**
+     * 拦截的资源类型,取值为DevTools的Network.ResourceType,例如Image、Font、Media、Stylesheet
+     */
+    @Builder.Default
+    private Set<String> resourceTypes = new HashSet<>();
+    /**
+     * 拦截的URL通配模式,例如*.png、*://*.doubleclick.net/*
+     */
+    @Builder.Default
+    private List<String> urlPatterns = new ArrayList<>();
+    /**
+     * 域名白名单,非空时只放行这些域名(含子域名)的请求
+     */
+    @Builder.Default
+    private List<String> allowDomains = new ArrayList<>();
+    /**
+     * 域名黑名单(含子域名)
+     */
+    @Builder.Default
+    private List<String> denyDomains = new ArrayList<>();
+}
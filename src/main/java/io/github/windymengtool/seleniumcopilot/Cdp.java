@@ -0,0 +1,69 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.lang.Assert;
+import lombok.Getter;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 与浏览器版本无关的DevTools协议访问:以方法名+参数Map发送命令、以Map接收事件,不依赖selenium-devtools-vXXX的生成类
+ */
+@Getter
+public class Cdp {
+    private ChromeEngine chromeEngine;
+    private DevTools devTools;
+    /**
+     * 建立会话时对应的driver,driver被替换后需要重新建立会话
+     */
+    private WebDriver attachedDriver;
+
+    public Cdp(ChromeEngine chromeEngine) {
+        this.chromeEngine = chromeEngine;
+    }
+
+    public synchronized DevTools devTools() {
+        WebDriver driver = chromeEngine.getDriver();
+        if (devTools == null || attachedDriver != driver) {
+            Assert.isTrue(driver instanceof HasDevTools, "driver does not support DevTools: {}", driver.getClass().getName());
+            DevTools created = ((HasDevTools) driver).getDevTools();
+            created.createSessionIfThereIsNotOne();
+            this.devTools = created;
+            this.attachedDriver = driver;
+        }
+        return devTools;
+    }
+
+    public Map<String, Object> send(String method) {
+        return send(method, Collections.emptyMap());
+    }
+
+    /**
+     * 发送命令并等待结果
+     */
+    public Map<String, Object> send(String method, Map<String, Object> params) {
+        Map<String, Object> result = devTools().send(new Command<Map<String, Object>>(method, params, input -> input.read(Json.MAP_TYPE)));
+        return result == null ? Collections.emptyMap() : result;
+    }
+
+    /**
+     * 发送命令但不等待结果,适用于在事件回调中答复Fetch.requestPaused等场景
+     */
+    public void fire(String method, Map<String, Object> params) {
+        devTools().send(new Command<Void>(method, params).doesNotSendResponse());
+    }
+
+    /**
+     * 监听事件,回调参数为事件的params
+     */
+    public void listen(String method, Consumer<Map<String, Object>> listener) {
+        devTools().addListener(new Event<Map<String, Object>>(method, input -> input.read(Json.MAP_TYPE)), listener);
+    }
+}
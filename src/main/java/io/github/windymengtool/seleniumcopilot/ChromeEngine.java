@@ -2,22 +2,33 @@ package io.github.windymengtool.seleniumcopilot;
 
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.date.TimeInterval;
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.io.IORuntimeException;
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.StrUtil;
 import lombok.Getter;
+import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.SessionNotCreatedException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -29,52 +40,179 @@ public class ChromeEngine {
     private ChromeProperties chromeProperties;
     private ChromeOptions chromeOptions;
     private WebDriver driver;
+    /**
+     * 多线程共享同一driver时(例如TabScheduler)用于串行化WebDriver调用
+     */
+    private final ReentrantLock driverLock = new ReentrantLock();
+    /**
+     * 当前引擎独占的用户数据克隆,未启用useUserDataCopy时为null
+     */
+    private ProfileCloner.ProfileClone profileClone;
+    private ElementCache elementCache = new ElementCache(this);
+    /**
+     * Finder/Waiter未指定间隔时使用的默认轮询策略
+     */
+    private PollingStrategy pollingStrategy = PollingStrategy.backoff();
+    private MetricsSink metricsSink = new InMemoryMetricsSink();
+    /**
+     * jumpAsync/findOneAsync/findListAsync使用的执行器,默认见{@link Futures#defaultExecutor()};
+     * WebDriver不是线程安全的,同一引擎上的异步操作应通过thenCompose等方式串联
+     */
+    private ExecutorService executor = Futures.defaultExecutor();
+    private Cdp cdp = new Cdp(this);
+    private FetchInterceptor fetchInterceptor = new FetchInterceptor(this);
+    /**
+     * 配置了blockingRules时存在
+     */
+    private ResourceBlocker resourceBlocker;
+    /**
+     * 配置了responseCacheRules时存在
+     */
+    private ResponseCacheHandler responseCacheHandler;
+    /**
+     * 首次调用{@link #networkTracker()}时创建
+     */
+    private volatile NetworkTracker networkTracker;
+    /**
+     * 配置了recoveryPolicy时存在
+     */
+    private SessionRecovery sessionRecovery;
+    /**
+     * 配置了governorPolicy时存在
+     */
+    private EngineGovernor governor;
+    /**
+     * 首次调用{@link #downloads()}时创建
+     */
+    private volatile DownloadManager downloadManager;
+    /**
+     * ChromeProperties.download下本引擎的子目录名,restart后不变
+     */
+    private final String downloadDirName = "engine-" + Assistant.nanoIdUpperCase();
+    /**
+     * 引擎启动耗时(用户数据克隆+浏览器启动+会话初始化),包装已有driver时为0
+     */
+    private long startupMs;
+    /**
+     * 每次{@link #restart()}后递增;TabScheduler、FinderCursor、Harvester据此发现自己持有的标签页/页面状态属于已丢弃的会话
+     */
+    private volatile int sessionGeneration;
 
     public ChromeEngine(ChromeProperties chromeProperties) {
         this.chromeProperties = chromeProperties;
+        TimeInterval timer = DateUtil.timer();
         this.chromeOptions = buildChromeOptions(chromeProperties);
         try {
-            this.driver = new ChromeDriver(chromeOptions);
+            this.driver = createDriver();
+            startSession();
+            this.startupMs = timer.intervalMs();
+            metricsSink.recordLatency("engine.startup", null, startupMs);
+            CopilotLogger.info(() -> StrUtil.format("[ENGINE]-started @ {}ms, launch profile[{}]", startupMs, chromeProperties.getLaunchProfile()));
         } catch (Exception e) {
+            Optional.ofNullable(driver).ifPresent(WebDriver::quit);
+            Optional.ofNullable(profileClone).ifPresent(ProfileCloner.ProfileClone::close);
             if (e instanceof SessionNotCreatedException) Assistant.errPrintWrapper("Please check if there is already a Google Chrome browser running, please close it and try again\r\n请检查是否已经有Google Chrome浏览器运行，请关闭后重试");
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * 包装一个已创建的driver(例如RemoteWebDriver或基准测试用的driver),不会启动新的浏览器,也不会复制用户数据
+     */
+    public ChromeEngine(ChromeProperties chromeProperties, WebDriver driver) {
+        this.chromeProperties = chromeProperties;
+        this.driver = driver;
+        startSession();
+    }
+
+    private WebDriver createDriver() {
+        return BooleanUtil.isFalse(chromeProperties.getShareDriverService())
+                ? new ChromeDriver(new ChromeDriverService.Builder().usingDriverExecutable(FileUtil.file(chromeProperties.getDriver())).usingAnyFreePort().build(), chromeOptions)
+                : new ChromeDriver(DriverServices.acquire(chromeProperties.getDriver()), chromeOptions);
+    }
+
+    /**
+     * 丢弃当前driver(尽力quit),以相同的启动参数与用户数据克隆重新创建并初始化会话;用于会话自愈.
+     * 重启前打开的TabScheduler、FinderCursor与进行中的Harvester属于旧会话,之后使用时抛出{@link SessionLostException},需要重新创建
+     */
+    public void restart() {
+        Assert.notNull(chromeOptions, "engine wrapping an external driver can not be restarted");
+        driverLock.lock();
+        try {
+            try {
+                driver.quit();
+            } catch (Exception e) {
+                // ignore: the session is already gone
+            }
+            this.driver = createDriver();
+            this.sessionGeneration++;
+            this.fetchInterceptor = new FetchInterceptor(this);
+            this.networkTracker = null;
+            Optional.ofNullable(downloadManager).ifPresent(DownloadManager::close);
+            this.downloadManager = null;
+            this.elementCache.invalidateAll();
+            startSession();
+        } finally {
+            driverLock.unlock();
+        }
+    }
+
+    /**
+     * driver创建后对会话的初始化
+     */
+    private void startSession() {
+        if (chromeProperties.getRecoveryPolicy() != null && sessionRecovery == null) {
+            this.sessionRecovery = new SessionRecovery(this, chromeProperties.getRecoveryPolicy());
+        }
+        if (chromeProperties.getGovernorPolicy() != null && governor == null) {
+            this.governor = new EngineGovernor(this, chromeProperties.getGovernorPolicy());
+        }
+        if (chromeProperties.getBlockingRules() != null) {
+            this.resourceBlocker = new ResourceBlocker(this, chromeProperties.getBlockingRules());
+            this.resourceBlocker.apply();
+        }
+        if (chromeProperties.getResponseCacheRules() != null) {
+            this.responseCacheHandler = new ResponseCacheHandler(this, ResponseCache.open(chromeProperties.getResponseCacheRules()));
+            this.responseCacheHandler.apply();
+        }
+    }
+
     private ChromeOptions buildChromeOptions(ChromeProperties chromeProperties) {
         ChromeOptions chromeOptions = new ChromeOptions();
-        System.setProperty("webdriver.chrome.driver", chromeProperties.getDriver());// system environment variable: specify the driving path
         // arguments
         Set<String> arguments = new HashSet<>();
         //
         if (CollectionUtil.isNotEmpty(chromeProperties.getArguments())) chromeProperties.getArguments().forEach(arguments::add);
+        if (chromeProperties.getLaunchProfile() != null) Collections.addAll(arguments, chromeProperties.getLaunchProfile().getArguments());
         if (BooleanUtil.isTrue(chromeProperties.getUseUserDataCopy())) {
-            arguments.add(StrUtil.format("--user-data-dir={}", copyUserData(chromeProperties.getUserData())));
+            arguments.add(StrUtil.format("--user-data-dir={}", copyUserData(chromeProperties)));
         }
         // crx
         List<File> crxSetList = checkCrx(chromeProperties.getCrxList());
+        if (CollectionUtil.isNotEmpty(crxSetList)) arguments.remove("--disable-extensions");
         //
         chromeOptions.addArguments(new ArrayList<>(arguments));
         if (CollectionUtil.isNotEmpty(crxSetList)) chromeOptions.addExtensions(crxSetList);
+        if (chromeProperties.getPageLoadStrategy() != null) chromeOptions.setPageLoadStrategy(chromeProperties.getPageLoadStrategy());
+        // download
+        if (StrUtil.isNotBlank(chromeProperties.getDownload())) {
+            Map<String, Object> prefs = new HashMap<>();
+            prefs.put("download.default_directory", FileUtil.getAbsolutePath(FileUtil.mkdir(chromeProperties.getDownload())));
+            prefs.put("download.prompt_for_download", false);
+            prefs.put("download.directory_upgrade", true);
+            chromeOptions.setExperimentalOption("prefs", prefs);
+        }
         return chromeOptions;
     }
 
-    private String copyUserData(String userData) {
-        Assert.isTrue(StrUtil.isNotBlank(userData) && FileUtil.exist(userData) && FileUtil.isDirectory(userData), "`userData` must be a valid directory");
-        String path = FileUtil.getAbsolutePath(FileUtil.file(FileUtil.getParent(userData, 1), "user_data_copy"));
-        if (!(FileUtil.exist(path) && FileUtil.isDirectory(path))) {
-            FileUtil.mkdir(path);
-            // copy the file in full, if the google browser is not turned off here, an error will be reported
-            try {
-                FileUtil.copyContent(FileUtil.file(userData), FileUtil.file(path), true);
-            } catch (IORuntimeException e) {
-                if (StrUtil.contains(e.getMessage(), "另一个程序正在使用此文件，进程无法访问")) {
-                    Assistant.errPrintWrapper("User data directory copy failed, please close Google Chrome and try again\r\n用户数据目录复制失败，请关闭Google Chrome后重试");
-                }
-                throw new RuntimeException(e);
-            }
-        }
-        return path;
+    private String copyUserData(ChromeProperties chromeProperties) {
+        this.profileClone = new ProfileCloner(chromeProperties.getUserData())
+                .root(chromeProperties.getUserDataCopyRoot())
+                .excludes(chromeProperties.getUserDataCopyExcludes())
+                .hardLinks(chromeProperties.getUserDataCopyHardLinks())
+                .parallelism(chromeProperties.getUserDataCopyParallelism())
+                .acquire();
+        return profileClone.getPath();
     }
 
     private List<File> checkCrx(List<String> crxList) {
@@ -86,6 +224,148 @@ public class ChromeEngine {
         return ListUtil.toList(list.stream().map(FileUtil::file).collect(Collectors.toList()));
     }
 
+    public ChromeEngine pollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+        return this;
+    }
+
+    public ChromeEngine executor(ExecutorService executor) {
+        this.executor = Optional.ofNullable(executor).orElseGet(Futures::defaultExecutor);
+        return this;
+    }
+
+    /**
+     * 构造时记录的engine.startup会补发给新的sink
+     */
+    public ChromeEngine metricsSink(MetricsSink metricsSink) {
+        MetricsSink previous = this.metricsSink;
+        this.metricsSink = Optional.ofNullable(metricsSink).orElse(MetricsSink.NOOP);
+        if (this.metricsSink != previous && startupMs > 0) this.metricsSink.recordLatency("engine.startup", null, startupMs);
+        return this;
+    }
+
+    /**
+     * 获取(必要时启用)网络请求跟踪;在跳转前调用可以覆盖整个页面加载
+     */
+    public NetworkTracker networkTracker() {
+        if (networkTracker == null) {
+            synchronized (this) {
+                if (networkTracker == null) {
+                    NetworkTracker tracker = new NetworkTracker(this);
+                    tracker.apply();
+                    this.networkTracker = tracker;
+                }
+            }
+        }
+        return networkTracker;
+    }
+
+    /**
+     * 取回当前页面DOM的离线快照,见{@link DomSnapshot}
+     */
+    public DomSnapshot snapshot() {
+        return DomSnapshot.capture(this);
+    }
+
+    /**
+     * 取回DOM后立即返回,解析在执行器上进行
+     */
+    public CompletableFuture<DomSnapshot> snapshotAsync() {
+        return DomSnapshot.captureAsync(this);
+    }
+
+    /**
+     * 获取(必要时启用)下载管理,下载目录为ChromeProperties.download下本引擎独占的子目录,
+     * 多个引擎(例如ChromeEnginePool)共用同一download时不会互相覆盖
+     */
+    public DownloadManager downloads() {
+        if (downloadManager == null) {
+            synchronized (this) {
+                if (downloadManager == null) {
+                    this.downloadManager = new DownloadManager(this, FileUtil.file(chromeProperties.getDownload(), downloadDirName).getPath(), Optional.ofNullable(chromeProperties.getMaxConcurrentDownloads()).orElse(4))
+                            .beginTimeoutMs(chromeProperties.getDownloadBeginTimeoutMs())
+                            .apply();
+                }
+            }
+        }
+        return downloadManager;
+    }
+
+    /**
+     * 浏览器使用的用户数据目录:用户数据克隆,或arguments中的--user-data-dir;都没有时为null
+     */
+    public String getUserDataDir() {
+        if (profileClone != null) return profileClone.getPath();
+        return CollectionUtil.emptyIfNull(chromeProperties.getArguments()).stream()
+                .filter(f -> StrUtil.startWith(f, "--user-data-dir="))
+                .map(f -> StrUtil.removePrefix(f, "--user-data-dir="))
+                .findFirst().orElse(null);
+    }
+
+    /**
+     * 会话在sessionGeneration之后已被{@link #restart()}替换时抛出{@link SessionLostException}
+     */
+    public void checkSession(int sessionGeneration, String what) {
+        if (this.sessionGeneration != sessionGeneration) {
+            throw new SessionLostException(StrUtil.format("{} belongs to a browser session that has been restarted", what));
+        }
+    }
+
+    /**
+     * 浏览器会话是否仍然可用(一次轻量的WebDriver调用)
+     */
+    public boolean isAlive() {
+        try {
+            return CollectionUtil.isNotEmpty(driver.getWindowHandles());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 将浏览器恢复为干净状态以便复用:关闭多余标签页,清除cookie与当前源的storage,并导航到空白页
+     */
+    public void reset() {
+        closeExtraTabs();
+        ((JavascriptExecutor) driver).executeScript("try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+        if (driver instanceof HasCdp) {
+            ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+        } else {
+            driver.manage().deleteAllCookies();
+        }
+        driver.get("about:blank");
+    }
+
+    /**
+     * 关闭多余标签页并导航到空白页以释放页面内存,保留cookie与storage(登录状态不受影响)
+     */
+    public void blank() {
+        closeExtraTabs();
+        driver.get("about:blank");
+    }
+
+    private void closeExtraTabs() {
+        List<String> handles = new ArrayList<>(driver.getWindowHandles());
+        String keep = handles.get(0);
+        for (String handle : handles) {
+            if (StrUtil.equals(handle, keep)) continue;
+            driver.switchTo().window(handle);
+            driver.close();
+        }
+        driver.switchTo().window(keep);
+    }
+
+    public void quit() {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            // ignore: the session may already be gone
+        } finally {
+            Optional.ofNullable(downloadManager).ifPresent(DownloadManager::close);
+            Optional.ofNullable(profileClone).ifPresent(ProfileCloner.ProfileClone::close);
+        }
+    }
+
     public Jumper jumper() {
         return new Jumper(this);
     }
@@ -0,0 +1,301 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * ChromeEngine池:预热、租借/归还、空闲回收与健康检查,将浏览器启动移出任务的关键路径
+ * <pre>
+ * ChromeEnginePool pool = new ChromeEnginePool(chromeProperties).minSize(2).maxSize(8).start();
+ * ChromeEngine engine = pool.lease();
+ * try {
+ *     engine.jumper().url(url).jump();
+ * } finally {
+ *     pool.release(engine);
+ * }
+ * </pre>
+ */
+@Getter
+public class ChromeEnginePool implements Closeable {
+    private ChromeProperties chromeProperties;
+    private String logPrefix = getDefaultLogPrefix();
+    private Integer minSize = 1;
+    private Integer maxSize = 4;
+    /**
+     * 空闲超过该时间且空闲实例数大于minSize时回收(与预热按同一口径计数,避免回收后立即补建)
+     */
+    private Long idleMs = 10 * 60 * 1000L;
+    private Long healthCheckMs = 30 * 1000L;
+    /**
+     * lease()等待可用实例的最长时间
+     */
+    private Long leaseMaxMs = 60 * 1000L;
+    /**
+     * 租借时是否先做一次存活检查
+     */
+    private Boolean testOnLease = false;
+    private Function<ChromeProperties, ChromeEngine> engineFactory = ChromeEngine::new;
+    //
+    private final LinkedBlockingDeque<PooledEngine> idle = new LinkedBlockingDeque<>();
+    private final Map<ChromeEngine, PooledEngine> leased = new ConcurrentHashMap<>();
+    /**
+     * 已创建(含正在创建)的实例数
+     */
+    private final AtomicInteger total = new AtomicInteger();
+    /**
+     * 后台正在预热的实例数
+     */
+    private final AtomicInteger warming = new AtomicInteger();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService warmer;
+    private volatile boolean started = false;
+    private volatile boolean closed = false;
+
+    public ChromeEnginePool(ChromeProperties chromeProperties) {
+        this.chromeProperties = chromeProperties;
+    }
+
+    public ChromeEnginePool logPrefix(String logPrefix) {
+        this.logPrefix = logPrefix;
+        return this;
+    }
+
+    public ChromeEnginePool minSize(Integer minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    public ChromeEnginePool maxSize(Integer maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public ChromeEnginePool idleMs(Long idleMs) {
+        this.idleMs = idleMs;
+        return this;
+    }
+
+    public ChromeEnginePool healthCheckMs(Long healthCheckMs) {
+        this.healthCheckMs = healthCheckMs;
+        return this;
+    }
+
+    public ChromeEnginePool leaseMaxMs(Long leaseMaxMs) {
+        this.leaseMaxMs = leaseMaxMs;
+        return this;
+    }
+
+    public ChromeEnginePool testOnLease(Boolean testOnLease) {
+        this.testOnLease = testOnLease;
+        return this;
+    }
+
+    public ChromeEnginePool engineFactory(Function<ChromeProperties, ChromeEngine> engineFactory) {
+        this.engineFactory = engineFactory;
+        return this;
+    }
+
+    public synchronized ChromeEnginePool start() {
+        if (started) return this;
+        minSize = minSize == null || minSize < 0 ? 0 : minSize;
+        maxSize = maxSize == null || maxSize < 1 ? 1 : maxSize;
+        Assert.isTrue(minSize <= maxSize, "minSize must be less than or equal to maxSize");
+        Assert.notNull(engineFactory, "not specified engineFactory");
+        healthCheckMs = healthCheckMs == null || healthCheckMs < 1000 ? 1000 : healthCheckMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(ThreadUtil.newNamedThreadFactory(logPrefix + "-maintain-", true));
+        this.warmer = Executors.newFixedThreadPool(maxSize, ThreadUtil.newNamedThreadFactory(logPrefix + "-warm-", true));
+        this.started = true;
+        prewarm();
+        scheduler.scheduleWithFixedDelay(this::maintain, healthCheckMs, healthCheckMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * 租借一个实例,优先使用已预热的空闲实例;池未满时在当前线程创建,已满时等待归还
+     */
+    public ChromeEngine lease() {
+        Assert.isTrue(started && !closed, "[{}]-pool is not running", logPrefix);
+        long deadline = System.currentTimeMillis() + Optional.ofNullable(leaseMaxMs).orElse(0L);
+        while (true) {
+            PooledEngine pooled = idle.pollFirst();
+            if (pooled == null && reserve()) {
+                pooled = create();
+            }
+            if (pooled == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) throw new RuntimeException(StrUtil.format("[{}]-no engine available within {}ms", logPrefix, leaseMaxMs));
+                try {
+                    pooled = idle.pollFirst(remaining, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                if (pooled == null) continue;
+            }
+            if (Boolean.TRUE.equals(testOnLease) && !pooled.engine.isAlive()) {
+                destroy(pooled);
+                continue;
+            }
+            leased.put(pooled.engine, pooled);
+            prewarm();
+            return pooled.engine;
+        }
+    }
+
+    /**
+     * 归还实例,重置标签页/cookie/storage后放回池中;重置失败的实例会被销毁并补充
+     */
+    public void release(ChromeEngine engine) {
+        PooledEngine pooled = leased.remove(engine);
+        if (pooled == null) return;
+        if (closed) {
+            destroy(pooled);
+            return;
+        }
+        try {
+            engine.reset();
+            pooled.idleSince = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (Exception e) {
+            Assistant.errPrintFlush(StrUtil.format("[{}]-reset failed, engine discarded: {}", logPrefix, e.getMessage()));
+            destroy(pooled);
+            prewarm();
+        }
+    }
+
+    /**
+     * 直接作废一个已租借的实例(例如调用方确认其会话已损坏)
+     */
+    public void invalidate(ChromeEngine engine) {
+        PooledEngine pooled = leased.remove(engine);
+        if (pooled != null) destroy(pooled);
+        prewarm();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getLeasedCount() {
+        return leased.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        Optional.ofNullable(scheduler).ifPresent(ExecutorService::shutdownNow);
+        Optional.ofNullable(warmer).ifPresent(ExecutorService::shutdownNow);
+        PooledEngine pooled;
+        while ((pooled = idle.pollFirst()) != null) destroy(pooled);
+        new ArrayList<>(leased.values()).forEach(this::destroy);
+        leased.clear();
+    }
+
+    /**
+     * 在后台补足到minSize个空闲实例
+     */
+    private void prewarm() {
+        if (closed) return;
+        int missing = minSize - idle.size() - warming.get();
+        for (int i = 0; i < missing && reserve(); i++) {
+            warming.incrementAndGet();
+            warmer.execute(() -> {
+                try {
+                    PooledEngine pooled = create();
+                    if (closed) {
+                        destroy(pooled);
+                    } else {
+                        idle.offerLast(pooled);
+                    }
+                } catch (Exception e) {
+                    Assistant.errPrintFlush(StrUtil.format("[{}]-prewarm failed: {}", logPrefix, e.getMessage()));
+                } finally {
+                    warming.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * 定时任务:回收空闲超时实例,替换失效实例,补足预热;
+     * 每次只取出一个实例检查,检查完立即放回,检查期间其余空闲实例仍可被租借
+     */
+    private void maintain() {
+        try {
+            long now = System.currentTimeMillis();
+            List<PooledEngine> snapshot = new ArrayList<>(idle);
+            // head to tail: each survivor is re-added at the tail, so a full pass keeps the most recently used engines at the head
+            for (PooledEngine pooled : snapshot) {
+                if (closed) break;
+                if (!idle.remove(pooled)) continue; // leased meanwhile
+                // same count as prewarm(): evicting must not drop the idle engines below minSize
+                boolean expired = idleMs != null && idleMs > 0 && now - pooled.idleSince > idleMs && idle.size() + warming.get() >= minSize;
+                if (expired || !pooled.engine.isAlive()) {
+                    destroy(pooled);
+                } else {
+                    idle.offerLast(pooled);
+                }
+            }
+            prewarm();
+        } catch (Exception e) {
+            Assistant.errPrintFlush(StrUtil.format("[{}]-maintain failed: {}", logPrefix, e.getMessage()));
+        }
+    }
+
+    /**
+     * 预占一个名额,成功返回true
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = total.get();
+            if (current >= maxSize) return false;
+            if (total.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    private PooledEngine create() {
+        try {
+            PooledEngine pooled = new PooledEngine(engineFactory.apply(chromeProperties));
+            CopilotLogger.info(() -> StrUtil.format("[{}]-engine created, total[{}]", logPrefix, total.get()));
+            return pooled;
+        } catch (RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void destroy(PooledEngine pooled) {
+        total.decrementAndGet();
+        pooled.engine.quit();
+    }
+
+    private String getDefaultLogPrefix() {
+        return StrUtil.format("{}-{}", getClass().getSimpleName().toUpperCase(), Assistant.nanoIdUpperCase());
+    }
+
+    private static class PooledEngine {
+        private final ChromeEngine engine;
+        private volatile long idleSince = System.currentTimeMillis();
+
+        private PooledEngine(ChromeEngine engine) {
+            this.engine = engine;
+        }
+    }
+}
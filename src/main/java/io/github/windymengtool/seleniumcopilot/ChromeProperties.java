@@ -1,7 +1,11 @@
 package io.github.windymengtool.seleniumcopilot;
 
+import cn.hutool.core.util.ArrayUtil;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
+import org.openqa.selenium.PageLoadStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,10 +15,80 @@ import java.util.List;
 public class ChromeProperties {
     private String driver;
     private String userData;
+    /**
+     * 下载目录,每个引擎的DownloadManager在其下使用独立的子目录,见{@link DownloadManager}
+     */
     private String download;
+    /**
+     * 同时进行的下载数上限
+     */
+    @Builder.Default
+    private Integer maxConcurrentDownloads = 4;
+    /**
+     * 触发操作之后等待下载开始(downloadWillBegin)的最长时间,超时则该下载失败并释放名额
+     */
+    @Builder.Default
+    private Long downloadBeginTimeoutMs = 30 * 1000L;
     private List<String> crxList;
+    /**
+     * 页面加载策略,为空时使用NORMAL;EAGER在DOMContentLoaded后返回,NONE在导航开始后立即返回,通常配合Jumper的readiness使用
+     */
+    private PageLoadStrategy pageLoadStrategy;
+    /**
+     * 资源拦截规则,为空时不拦截
+     */
+    private BlockingRules blockingRules;
+    /**
+     * 共享响应缓存配置,为空时不使用
+     */
+    private ResponseCacheRules responseCacheRules;
+    /**
+     * 会话自愈策略,为空时不自愈
+     */
+    private RecoveryPolicy recoveryPolicy;
+    /**
+     * 引擎回收阈值,为空时不回收
+     */
+    private GovernorPolicy governorPolicy;
+    /**
+     * 是否所有引擎共享同一个chromedriver进程(按driver路径),见{@link DriverServices}
+     */
+    @Builder.Default
+    private Boolean shareDriverService = true;
+    /**
+     * 内置启动参数组合,在arguments之外追加
+     */
+    @Builder.Default
+    private LaunchProfileEnum launchProfile = LaunchProfileEnum.DEFAULT;
     @Builder.Default
     private Boolean useUserDataCopy = true;
+    /**
+     * 用户数据克隆的根目录,每个引擎占用其中一个槽位;为空时使用userData同级的user_data_copy目录
+     */
+    private String userDataCopyRoot;
+    /**
+     * 克隆时跳过的缓存目录/文件名
+     */
+    @Builder.Default
+    private List<String> userDataCopyExcludes = new ArrayList<String>() {{
+        add("Cache");
+        add("Code Cache");
+        add("GPUCache");
+        add("GrShaderCache");
+        add("ShaderCache");
+        add("CacheStorage");
+        add("ScriptCache");
+        add("Crashpad");
+    }};
+    /**
+     * 克隆时以硬链接代替复制的不可变目录(相对userData)
+     */
+    @Builder.Default
+    private List<String> userDataCopyHardLinks = new ArrayList<String>() {{
+        add("Default/Extensions");
+    }};
+    @Builder.Default
+    private Integer userDataCopyParallelism = 4;
     @Builder.Default
     private List<String> arguments = new ArrayList<String>() {{
         add("--no-sandbox"); // Solve the error that does not exist in the devtoolsActivePort file
@@ -26,4 +100,47 @@ public class ChromeProperties {
         add("--remote-allow-origins=*"); // Allow the same source policy (necessary)
         add("--start-maximized"); // Maximum window
     }};
+
+    @Getter
+    @AllArgsConstructor
+    public enum LaunchProfileEnum {
+        DEFAULT(1, "默认", "default", new String[]{}),
+        /**
+         * 关闭后台联网、组件更新、扩展、同步与首次运行流程,减少冷启动时间与后台进程
+         */
+        FAST(2, "快速启动", "fast", LaunchArguments.FAST),
+        /**
+         * FAST + 无头模式
+         */
+        HEADLESS_FAST(3, "无头快速启动", "headless fast", LaunchArguments.with(LaunchArguments.FAST, "--headless=new", "--hide-scrollbars")),
+        ;
+        private Integer code;
+        private String zhLabel;
+        private String enLabel;
+        private String[] arguments;
+    }
+
+    /**
+     * 启动参数组,枚举常量初始化时不能引用枚举自身的静态字段,因此放在单独的类中
+     */
+    private static class LaunchArguments {
+        private static final String[] FAST = {
+                "--disable-background-networking",
+                "--disable-component-update",
+                "--disable-extensions",
+                "--disable-default-apps",
+                "--disable-sync",
+                "--disable-client-side-phishing-detection",
+                "--disable-features=Translate,OptimizationHints,MediaRouter",
+                "--no-first-run",
+                "--no-default-browser-check",
+                "--metrics-recording-only",
+                "--password-store=basic",
+                "--mute-audio",
+        };
+
+        private static String[] with(String[] base, String... extra) {
+            return ArrayUtil.append(base, extra);
+        }
+    }
 }
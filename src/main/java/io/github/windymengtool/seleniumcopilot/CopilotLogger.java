@@ -0,0 +1,151 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 默认消费者使用的日志门面:按级别过滤,消息通过Supplier懒加载,未启用的级别不做任何格式化;
+ * 启用的消息写入有界环形缓冲区,由单个守护线程批量输出到System.out/System.err,缓冲区满时丢弃并计数,调用方从不阻塞或休眠.
+ * 级别可通过系统属性`selenium.copilot.log.level`(DEBUG/INFO/WARN/ERROR/OFF)或{@link #level(LevelEnum)}设置,默认为INFO
+ */
+public class CopilotLogger {
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final int DRAIN_BATCH = 256;
+    private static final BlockingQueue<Entry> BUFFER = new ArrayBlockingQueue<>(BUFFER_CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static volatile LevelEnum level = LevelEnum.of(System.getProperty("selenium.copilot.log.level"), LevelEnum.INFO);
+
+    static {
+        Thread drainer = new Thread(CopilotLogger::drainForever, "copilot-logger");
+        drainer.setDaemon(true);
+        drainer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(CopilotLogger::flush, "copilot-logger-flush"));
+    }
+
+    public static LevelEnum level() {
+        return level;
+    }
+
+    public static void level(LevelEnum level) {
+        CopilotLogger.level = level == null ? LevelEnum.INFO : level;
+    }
+
+    public static boolean isEnabled(LevelEnum target) {
+        return target.getCode() >= level.getCode() && target != LevelEnum.OFF;
+    }
+
+    /**
+     * 缓冲区满时被丢弃的消息数
+     */
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+
+    public static void debug(Supplier<String> message) {
+        log(LevelEnum.DEBUG, message);
+    }
+
+    public static void info(Supplier<String> message) {
+        log(LevelEnum.INFO, message);
+    }
+
+    public static void warn(Supplier<String> message) {
+        log(LevelEnum.WARN, message);
+    }
+
+    public static void error(Supplier<String> message) {
+        log(LevelEnum.ERROR, message);
+    }
+
+    public static void log(LevelEnum target, Supplier<String> message) {
+        if (!isEnabled(target)) return;
+        // 在调用线程求值,避免消息引用的状态(例如计时器)在输出前被修改
+        if (!BUFFER.offer(new Entry(target, message.get()))) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    /**
+     * 同步输出缓冲区中剩余的消息
+     */
+    public static void flush() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH);
+        while (BUFFER.drainTo(batch, DRAIN_BATCH) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private static void drainForever() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH);
+        while (true) {
+            try {
+                Entry first = BUFFER.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                BUFFER.drainTo(batch, DRAIN_BATCH - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Throwable e) {
+                // 输出失败不影响后续日志
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static synchronized void write(List<Entry> batch) {
+        boolean out = false, err = false;
+        long dropped = DROPPED.getAndSet(0);
+        if (dropped > 0) {
+            System.err.println(StrUtil.format("[LOGGER]-{} messages dropped, buffer is full", dropped));
+            err = true;
+        }
+        for (Entry entry : batch) {
+            PrintStream stream = entry.level.getCode() >= LevelEnum.WARN.getCode() ? System.err : System.out;
+            stream.println(entry.message);
+            if (stream == System.err) err = true;
+            else out = true;
+        }
+        if (out) System.out.flush();
+        if (err) System.err.flush();
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private LevelEnum level;
+        private String message;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public enum LevelEnum {
+        DEBUG(1, "调试", "debug"),
+        INFO(2, "信息", "info"),
+        WARN(3, "警告", "warn"),
+        ERROR(4, "错误", "error"),
+        OFF(5, "关闭", "off"),
+        ;
+        private Integer code;
+        private String zhLabel;
+        private String enLabel;
+
+        public static LevelEnum of(String name, LevelEnum defaultLevel) {
+            for (LevelEnum value : values()) {
+                if (value.name().equalsIgnoreCase(StrUtil.trim(name))) return value;
+            }
+            return defaultLevel;
+        }
+    }
+}
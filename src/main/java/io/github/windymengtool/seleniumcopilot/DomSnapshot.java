@@ -0,0 +1,177 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.TokenQueue;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * 页面渲染后DOM的离线快照:一次WebDriver调用取回序列化的DOM,之后所有定位都在JVM内解析后的树上完成,不再访问浏览器;
+ * 适用于只读抓取.支持css selector/xpath/tag name/link text/partial link text/id/name/class name定位器;
+ * 不包含shadow DOM,表单的实时输入值以属性为准
+ * <pre>
+ * DomSnapshot snapshot = chromeEngine.snapshot();
+ * List&lt;Element&gt; rows = snapshot.findList(By.cssSelector("table tr"));
+ * </pre>
+ */
+@Getter
+public class DomSnapshot {
+    /**
+     * 返回[url, 序列化的DOM]
+     */
+    static final String CAPTURE_SCRIPT = "return [document.URL, document.documentElement ? document.documentElement.outerHTML : ''];";
+
+    private String url;
+    private Document document;
+    /**
+     * 取回DOM与解析的耗时
+     */
+    private long captureMs;
+    private long parseMs;
+
+    public DomSnapshot(String url, String html) {
+        long start = System.currentTimeMillis();
+        this.url = url;
+        this.document = Jsoup.parse(StrUtil.nullToEmpty(html), StrUtil.nullToEmpty(url));
+        this.parseMs = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * 从浏览器取回当前页面的DOM(一次WebDriver调用)并解析
+     */
+    public static DomSnapshot capture(ChromeEngine chromeEngine) {
+        long start = System.currentTimeMillis();
+        List<Object> raw = (List<Object>) ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(CAPTURE_SCRIPT);
+        DomSnapshot snapshot = new DomSnapshot(StrUtil.toStringOrNull(raw.get(0)), StrUtil.toStringOrNull(raw.get(1)));
+        snapshot.captureMs = System.currentTimeMillis() - start - snapshot.parseMs;
+        chromeEngine.getMetricsSink().recordLatency("snapshot.capture", null, snapshot.captureMs);
+        chromeEngine.getMetricsSink().recordLatency("snapshot.parse", null, snapshot.parseMs);
+        return snapshot;
+    }
+
+    /**
+     * 在调用线程取回DOM后立即返回,解析在ChromeEngine的执行器上进行,浏览器可以马上进行下一次跳转
+     */
+    public static CompletableFuture<DomSnapshot> captureAsync(ChromeEngine chromeEngine) {
+        long start = System.currentTimeMillis();
+        List<Object> raw = (List<Object>) ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(CAPTURE_SCRIPT);
+        long captureMs = System.currentTimeMillis() - start;
+        chromeEngine.getMetricsSink().recordLatency("snapshot.capture", null, captureMs);
+        return CompletableFuture.supplyAsync(() -> {
+            DomSnapshot snapshot = new DomSnapshot(StrUtil.toStringOrNull(raw.get(0)), StrUtil.toStringOrNull(raw.get(1)));
+            snapshot.captureMs = captureMs;
+            chromeEngine.getMetricsSink().recordLatency("snapshot.parse", null, snapshot.parseMs);
+            return snapshot;
+        }, chromeEngine.getExecutor());
+    }
+
+    public Element findOne(By locator) {
+        List<Element> elements = findList(locator);
+        if (elements.isEmpty()) throw new NoSuchElementException(StrUtil.format("no element in snapshot of [{}] matches [{}]", url, locator));
+        return elements.get(0);
+    }
+
+    public List<Element> findList(By locator) {
+        return select(document, locator);
+    }
+
+    /**
+     * 批量查找,按key返回,顺序与入参一致
+     */
+    public Map<String, List<Element>> findAll(Map<String, By> locators) {
+        Map<String, List<Element>> resultMap = new LinkedHashMap<>();
+        locators.forEach((key, by) -> resultMap.put(key, findList(by)));
+        return resultMap;
+    }
+
+    /**
+     * 在执行器上并行查找;快照只读,可被多个线程同时查询
+     */
+    public CompletableFuture<Map<String, List<Element>>> findAllAsync(Map<String, By> locators, ExecutorService executor) {
+        Map<String, CompletableFuture<List<Element>>> futures = new LinkedHashMap<>();
+        locators.forEach((key, by) -> futures.put(key, CompletableFuture.supplyAsync(() -> findList(by), executor)));
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<String, List<Element>> resultMap = new LinkedHashMap<>();
+            futures.forEach((key, future) -> resultMap.put(key, future.join()));
+            return resultMap;
+        });
+    }
+
+    /**
+     * 按{@link ExtractSpec}提取,结果与{@link Finder#extract(ExtractSpec)}一致(文本为空白折叠后的文本)
+     */
+    public List<Map<String, Object>> extract(ExtractSpec spec) {
+        Assert.notEmpty(spec.getFields(), "not specified extract fields");
+        return findList(spec.getRowLocator()).stream().map(row -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (ExtractSpec.Field field : spec.getFields()) {
+                Element element = row;
+                if (field.getLocator() != null) {
+                    List<Element> found = select(row, field.getLocator());
+                    element = found.isEmpty() ? null : found.get(0);
+                }
+                values.put(field.getName(), element == null ? null : value(element, field));
+            }
+            return values;
+        }).collect(Collectors.toList());
+    }
+
+    private static Object value(Element element, ExtractSpec.Field field) {
+        switch (field.getType()) {
+            case TEXT:
+                return element.text();
+            case ATTR:
+                return element.hasAttr(field.getAttribute()) ? element.attr(field.getAttribute()) : null;
+            case HTML:
+                return element.html();
+            default:
+                throw new UnsupportedOperationException(StrUtil.format("not supported field type:[{}]", field.getType()));
+        }
+    }
+
+    /**
+     * 在root下按定位器查找,支持相对xpath(以`.`开头);与浏览器的querySelectorAll一致,css类定位器只匹配root的后代,不包含root本身.
+     * Selenium的id/name/class name定位器在发送给驱动时才改写为css,这里按相同规则改写
+     */
+    static List<Element> select(Element root, By locator) {
+        if (!(locator instanceof By.Remotable)) {
+            throw new UnsupportedOperationException(StrUtil.format("locator can not be evaluated on snapshot:[{}]", locator));
+        }
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        String value = String.valueOf(parameters.value());
+        String css = Locators.toCss(parameters.using(), value, TokenQueue::escapeCssIdentifier);
+        if (css != null) return descendants(root, css);
+        switch (parameters.using()) {
+            case "xpath":
+                return new ArrayList<>(root.selectXpath(value));
+            case "link text":
+                return descendants(root, "a").stream().filter(a -> StrUtil.equals(a.text().trim(), value)).collect(Collectors.toList());
+            case "partial link text":
+                return descendants(root, "a").stream().filter(a -> StrUtil.contains(a.text(), value)).collect(Collectors.toList());
+            default:
+                throw new UnsupportedOperationException(StrUtil.format("locator strategy can not be evaluated on snapshot:[{}]", parameters.using()));
+        }
+    }
+
+    /**
+     * jsoup的select会匹配root本身,浏览器的querySelectorAll不会;
+     * 注意不能在Elements上removeIf,jsoup会同时把元素从文档中移除
+     */
+    private static List<Element> descendants(Element root, String cssQuery) {
+        return root.select(cssQuery).stream().filter(f -> f != root).collect(Collectors.toList());
+    }
+}
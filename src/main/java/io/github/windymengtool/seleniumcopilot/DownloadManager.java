@@ -0,0 +1,270 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.lang.Validator;
+import cn.hutool.core.util.URLUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 下载管理:通过Browser.setDownloadBehavior把下载保存到本引擎的下载目录(文件先以guid命名),
+ * 由DevTools的downloadWillBegin/downloadProgress事件与目录上的WatchService(.crdownload重命名为最终文件)共同判定完成,
+ * 完成后重命名为建议的文件名并完成对应的future;同时进行的下载数受maxConcurrentDownloads限制,超过时发起方阻塞.全程不轮询.
+ * downloadWillBegin优先按URL对应到发起的下载,对应不上时按发起顺序对应到未指定URL的下载;
+ * 触发后beginTimeoutMs内没有开始的下载以超时失败并释放名额;不经expect发起的下载只重命名,
+ * 但在有未指定URL的下载等待开始时会被当作它,此时应使用{@link #expect(String, Runnable)}
+ * <pre>
+ * CompletableFuture&lt;File&gt; file = chromeEngine.downloads().expect(() -&gt; button.click());
+ * </pre>
+ */
+@Getter
+public class DownloadManager implements Closeable {
+    private static final String ANCHOR_SCRIPT = "var a=document.createElement('a');a.href=arguments[0];a.download='';a.style.display='none';"
+            + "document.body.appendChild(a);a.click();a.remove();";
+    private static final String PARTIAL_SUFFIX = ".crdownload";
+
+    private ChromeEngine chromeEngine;
+    private File dir;
+    private Semaphore permits;
+    private Long beginTimeoutMs = 30 * 1000L;
+    /**
+     * 已发起、等待downloadWillBegin的下载,按发起顺序排列
+     */
+    private final Queue<Download> expected = new ConcurrentLinkedQueue<>();
+    /**
+     * guid -> 进行中的下载
+     */
+    private final Map<String, Download> active = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread watcher;
+
+    public DownloadManager(ChromeEngine chromeEngine, String dir, int maxConcurrentDownloads) {
+        Assert.notBlank(dir, "not specified download directory");
+        this.chromeEngine = chromeEngine;
+        this.dir = FileUtil.mkdir(dir);
+        this.permits = new Semaphore(Math.max(1, maxConcurrentDownloads));
+    }
+
+    public DownloadManager beginTimeoutMs(Long beginTimeoutMs) {
+        this.beginTimeoutMs = beginTimeoutMs;
+        return this;
+    }
+
+    /**
+     * 在当前会话上启用下载事件并开始监听目录
+     */
+    public DownloadManager apply() {
+        Cdp cdp = chromeEngine.getCdp();
+        cdp.listen("Browser.downloadWillBegin", this::onBegin);
+        cdp.listen("Browser.downloadProgress", this::onProgress);
+        Map<String, Object> params = new HashMap<>();
+        params.put("behavior", "allowAndName");
+        params.put("downloadPath", dir.getAbsolutePath());
+        params.put("eventsEnabled", true);
+        cdp.send("Browser.setDownloadBehavior", params);
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            dir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.watcher = new Thread(this::watch, StrUtil.format("copilot-download-watcher-{}", Assistant.nanoIdUpperCase()));
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+        return this;
+    }
+
+    /**
+     * 执行会触发下载的操作(例如点击),返回该下载完成后的文件;进行中的下载已达上限时阻塞
+     */
+    public CompletableFuture<File> expect(Runnable trigger) {
+        return expect(null, trigger);
+    }
+
+    /**
+     * 同{@link #expect(Runnable)},已知下载URL时按URL对应,不会与其他下载混淆
+     */
+    public CompletableFuture<File> expect(String url, Runnable trigger) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        Download download = new Download();
+        download.url = url;
+        download.future.whenComplete((file, e) -> {
+            permits.release();
+            expected.remove(download);
+            if (download.guid != null) active.remove(download.guid);
+            MetricsSink sink = chromeEngine.getMetricsSink();
+            sink.recordLatency("download", null, System.currentTimeMillis() - download.startedAt);
+            if (e != null) sink.increment("download.failures", null);
+            else sink.increment("download.bytes", null, file.length());
+        });
+        expected.add(download);
+        try {
+            trigger.run();
+        } catch (RuntimeException e) {
+            download.future.completeExceptionally(e);
+            throw e;
+        }
+        if (beginTimeoutMs != null && beginTimeoutMs > 0) {
+            ScheduledFuture<?> timeout = Poller.sharedScheduler().schedule(() -> {
+                if (expected.remove(download)) {
+                    download.future.completeExceptionally(new TimeoutException(StrUtil.format("download did not begin within {}ms", beginTimeoutMs)));
+                }
+            }, beginTimeoutMs, TimeUnit.MILLISECONDS);
+            download.future.whenComplete((file, e) -> timeout.cancel(false));
+        }
+        return download.future;
+    }
+
+    /**
+     * 在当前页面以&lt;a download&gt;下载指定URL
+     */
+    public CompletableFuture<File> download(String url) {
+        String absoluteUrl = Validator.isUrl(url) ? url : URLUtil.completeUrl(chromeEngine.getDriver().getCurrentUrl(), url);
+        return expect(absoluteUrl, () -> ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(ANCHOR_SCRIPT, absoluteUrl));
+    }
+
+    private void onBegin(Map<String, Object> event) {
+        String guid = Convert.toStr(event.get("guid"));
+        String url = Convert.toStr(event.get("url"));
+        Download download = claim(url);
+        if (download == null) download = new Download(); // 不是通过expect发起(或已超时)的下载,只负责重命名
+        download.guid = guid;
+        download.url = url;
+        download.suggestedFilename = StrUtil.blankToDefault(Convert.toStr(event.get("suggestedFilename")), guid);
+        active.put(guid, download);
+    }
+
+    /**
+     * 取出与事件对应的等待中的下载:URL相同者优先,其次是最早发起的未指定URL者;
+     * 都没有时取最早发起的(指定的URL可能因重定向而不同)
+     */
+    private Download claim(String url) {
+        synchronized (expected) {
+            Download matched = expected.stream().filter(f -> f.url != null && StrUtil.equals(f.url, url)).findFirst()
+                    .orElseGet(() -> expected.stream().filter(f -> f.url == null).findFirst()
+                            .orElseGet(expected::peek));
+            return matched != null && expected.remove(matched) ? matched : null;
+        }
+    }
+
+    private void onProgress(Map<String, Object> event) {
+        Download download = active.get(Convert.toStr(event.get("guid")));
+        if (download == null) return;
+        download.receivedBytes = Convert.toLong(event.get("receivedBytes"), 0L);
+        download.totalBytes = Convert.toLong(event.get("totalBytes"), 0L);
+        String state = Convert.toStr(event.get("state"));
+        if (StrUtil.equals(state, "completed")) {
+            finish(download);
+        } else if (StrUtil.equals(state, "canceled")) {
+            active.remove(download.guid);
+            download.future.completeExceptionally(new RuntimeException(StrUtil.format("download canceled: {}", download.url)));
+        }
+    }
+
+    /**
+     * 目录事件:看到guid.crdownload之后又出现guid文件,说明Chrome已完成写入并重命名
+     */
+    private void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+                String name = ((Path) event.context()).getFileName().toString();
+                if (name.endsWith(PARTIAL_SUFFIX)) {
+                    Download download = active.get(StrUtil.removeSuffix(name, PARTIAL_SUFFIX));
+                    if (download != null) download.sawPartial = true;
+                } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    Download download = active.get(name);
+                    if (download != null && download.sawPartial && !new File(dir, name + PARTIAL_SUFFIX).exists()) finish(download);
+                }
+            }
+            if (!key.reset()) return;
+        }
+    }
+
+    /**
+     * 重命名为建议的文件名(重名时追加序号)并完成future;事件与目录监听可能同时到达,只处理一次
+     */
+    private void finish(Download download) {
+        if (!download.finished.compareAndSet(false, true)) return;
+        active.remove(download.guid);
+        try {
+            File source = new File(dir, download.guid);
+            File target = uniqueFile(download.suggestedFilename);
+            FileUtil.move(source, target, false);
+            CopilotLogger.info(() -> StrUtil.format("[DOWNLOAD]-completed [{}] {}", target.getName(), FileUtil.readableFileSize(target.length())));
+            download.future.complete(target);
+        } catch (Exception e) {
+            download.future.completeExceptionally(e);
+        }
+    }
+
+    private synchronized File uniqueFile(String filename) {
+        File target = new File(dir, FileUtil.cleanInvalid(filename));
+        String main = FileUtil.mainName(target);
+        String ext = FileUtil.extName(target);
+        for (int i = 1; target.exists(); i++) {
+            target = new File(dir, StrUtil.format("{} ({}){}", main, i, StrUtil.isEmpty(ext) ? "" : "." + ext));
+        }
+        return target;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (watchService != null) watchService.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        RuntimeException closed = new RuntimeException("download manager closed");
+        expected.forEach(f -> f.future.completeExceptionally(closed));
+        active.values().forEach(f -> f.future.completeExceptionally(closed));
+    }
+
+    private static class Download {
+        private final CompletableFuture<File> future = new CompletableFuture<>();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final long startedAt = System.currentTimeMillis();
+        private volatile String guid;
+        private volatile String url;
+        private volatile String suggestedFilename;
+        private volatile boolean sawPartial;
+        private volatile long receivedBytes;
+        private volatile long totalBytes;
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.StrUtil;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.net.PortProber;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按chromedriver路径共享的ChromeDriverService:同一JVM内的所有引擎复用一个长期运行的chromedriver进程,
+ * 替代每个引擎各自启动chromedriver并全局设置`webdriver.chrome.driver`系统属性;进程在JVM退出或{@link #shutdownAll()}时停止
+ */
+public class DriverServices {
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(20);
+    private static final Map<String, SharedChromeDriverService> SERVICES = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(DriverServices::shutdownAll, "copilot-driver-services-shutdown"));
+    }
+
+    /**
+     * 获取(必要时启动)指定chromedriver对应的共享服务;服务进程意外退出后会重新启动
+     */
+    public static ChromeDriverService acquire(String driverPath) {
+        Assert.notBlank(driverPath, "not specified chrome driver path");
+        String key = FileUtil.getAbsolutePath(driverPath);
+        return SERVICES.compute(key, (path, service) -> {
+            if (service != null && service.isRunning()) return service;
+            SharedChromeDriverService created = null;
+            try {
+                created = new SharedChromeDriverService(new File(path), PortProber.findFreePort());
+                created.start();
+                CopilotLogger.info(() -> StrUtil.format("[DRIVER-SERVICE]-chromedriver started: {}", path));
+                return created;
+            } catch (IOException e) {
+                if (created != null) created.shutdown();
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * 停止所有共享的chromedriver进程,之后仍可再次acquire
+     */
+    public static void shutdownAll() {
+        SERVICES.values().forEach(SharedChromeDriverService::shutdown);
+        SERVICES.clear();
+    }
+
+    /**
+     * driver.quit()会调用服务的stop(),共享服务忽略该调用,只在shutdown()时真正停止
+     */
+    private static class SharedChromeDriverService extends ChromeDriverService {
+        private SharedChromeDriverService(File executable, int port) throws IOException {
+            super(executable, port, START_TIMEOUT, Collections.singletonList(StrUtil.format("--port={}", port)), Collections.emptyMap());
+        }
+
+        @Override
+        public void stop() {
+            // shared by every engine, see shutdown()
+        }
+
+        private void shutdown() {
+            super.stop();
+        }
+    }
+}
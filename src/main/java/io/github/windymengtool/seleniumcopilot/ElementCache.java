@@ -0,0 +1,182 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 挂载在ChromeEngine上的元素缓存,key为查找类型+定位器或JS脚本,按文档代次(generation)失效:
+ * 首次写入时向window注入代次标记,导航后标记消失即视为新文档;Jumper跳转或出现StaleElementReferenceException时主动失效.
+ * 每个窗口(标签页)各自维护代次与条目,TabScheduler切换标签页时通过{@link #scope(String)}切换;
+ * 未经TabScheduler直接switchTo其他窗口时,代次校验会发现标记不一致并失效.
+ * 单页应用在不导航的情况下重绘DOM时,缓存的元素可能失效,调用方捕获StaleElementReferenceException后应调用{@link #invalidate()}
+ */
+@Getter
+public class ElementCache {
+    private static final String MARK_SCRIPT = "if(!window.__copilotGeneration){window.__copilotGeneration=arguments[0];}return window.__copilotGeneration;";
+    private static final String READ_SCRIPT = "return window.__copilotGeneration||null;";
+
+    private ChromeEngine chromeEngine;
+    /**
+     * 两次校验页面代次标记之间的最小间隔,间隔内命中不访问浏览器
+     */
+    private Long verifyIntervalMs = 1000L;
+    /**
+     * 每个窗口的条目上限
+     */
+    private Integer maxEntries = 256;
+    //
+    private final Map<String, Scope> scopes = new HashMap<>();
+    /**
+     * 当前窗口的缓存,未经TabScheduler使用时只有一个
+     */
+    private volatile Scope scope;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ElementCache(ChromeEngine chromeEngine) {
+        this.chromeEngine = chromeEngine;
+        this.scope = new Scope();
+        this.scopes.put(null, scope);
+    }
+
+    public ElementCache verifyIntervalMs(Long verifyIntervalMs) {
+        this.verifyIntervalMs = verifyIntervalMs;
+        return this;
+    }
+
+    public ElementCache maxEntries(Integer maxEntries) {
+        this.maxEntries = maxEntries;
+        return this;
+    }
+
+    /**
+     * 查找一个与查找多个分开缓存,避免findOne写入的单元素列表被findList当作完整结果返回
+     */
+    public static String key(Finder.FindTypeEnum findTypeEnum, By locator) {
+        return findTypeEnum + ":BY:" + locator;
+    }
+
+    public static String key(Finder.FindTypeEnum findTypeEnum, String javaScript) {
+        return findTypeEnum + ":JS:" + javaScript;
+    }
+
+    /**
+     * 切换到某个窗口的缓存;driver切换窗口后调用(见TabScheduler)
+     */
+    public ElementCache scope(String windowHandle) {
+        synchronized (scopes) {
+            this.scope = scopes.computeIfAbsent(windowHandle, k -> new Scope());
+        }
+        return this;
+    }
+
+    /**
+     * 丢弃某个已关闭窗口的缓存
+     */
+    public void drop(String windowHandle) {
+        synchronized (scopes) {
+            Scope removed = scopes.remove(windowHandle);
+            if (removed != null && removed == scope) scope = scopes.computeIfAbsent(null, k -> new Scope());
+        }
+    }
+
+    /**
+     * 命中时返回缓存的元素,未命中或文档已变化时返回null
+     */
+    public List<WebElement> get(String key) {
+        Scope current = this.scope;
+        List<WebElement> elements;
+        synchronized (current) {
+            elements = current.generation == null ? null : current.entries.get(key);
+        }
+        if (elements != null && !verify(current)) elements = null;
+        if (elements == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new ArrayList<>(elements);
+    }
+
+    public void put(String key, List<WebElement> elements) {
+        Scope current = this.scope;
+        if (current.generation == null) {
+            String token = Assistant.nanoIdUpperCase();
+            Object marked = ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(MARK_SCRIPT, token);
+            current.generation = StrUtil.toStringOrNull(marked);
+            current.verifiedAt = System.currentTimeMillis();
+        }
+        synchronized (current) {
+            current.entries.put(key, new ArrayList<>(elements));
+        }
+    }
+
+    /**
+     * 清空当前窗口的缓存,下一次写入时重新标记文档代次
+     */
+    public void invalidate() {
+        invalidate(this.scope);
+    }
+
+    /**
+     * 清空所有窗口的缓存,例如driver重建之后
+     */
+    public void invalidateAll() {
+        synchronized (scopes) {
+            scopes.values().forEach(this::invalidate);
+        }
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0D : (double) hits.get() / total;
+    }
+
+    private void invalidate(Scope target) {
+        synchronized (target) {
+            if (target.generation != null || !target.entries.isEmpty()) invalidations.incrementAndGet();
+            target.entries.clear();
+            target.generation = null;
+        }
+    }
+
+    /**
+     * 超过校验间隔时读取页面中的代次标记,与记录的不一致则失效
+     */
+    private boolean verify(Scope target) {
+        long now = System.currentTimeMillis();
+        if (verifyIntervalMs != null && now - target.verifiedAt < verifyIntervalMs) return true;
+        Object current = ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(READ_SCRIPT);
+        if (StrUtil.equals(StrUtil.toStringOrNull(current), target.generation)) {
+            target.verifiedAt = now;
+            return true;
+        }
+        invalidate(target);
+        return false;
+    }
+
+    /**
+     * 单个窗口的代次与条目
+     */
+    private class Scope {
+        private volatile String generation;
+        private volatile long verifiedAt;
+        private final Map<String, List<WebElement>> entries = new LinkedHashMap<String, List<WebElement>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<WebElement>> eldest) {
+                return maxEntries != null && size() > maxEntries;
+            }
+        };
+    }
+}
@@ -0,0 +1,233 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 引擎资源管控:统计跳转次数与运行时间,定期采样浏览器进程树的RSS与页面JS堆;超过{@link GovernorPolicy}的阈值时,
+ * 在下一次跳转开始前回收引擎——内存超限先软回收(关闭多余标签页并导航到空白页,保留cookie与storage),仍超限或跳转次数/运行时间超限则重启浏览器,
+ * 重启沿用已克隆的用户数据目录.在ChromeProperties中配置governorPolicy后启用
+ */
+@Getter
+public class EngineGovernor {
+    private static final File PROC = new File("/proc");
+    private static final String JS_HEAP_SCRIPT = "return (window.performance&&performance.memory)?performance.memory.usedJSHeapSize:-1;";
+
+    private ChromeEngine chromeEngine;
+    private GovernorPolicy governorPolicy;
+    //
+    private volatile long startedAt = System.currentTimeMillis();
+    private volatile int navigations;
+    private volatile long lastRssBytes = -1;
+    private volatile long lastJsHeapBytes = -1;
+    private volatile RecycleEnum pendingRecycle;
+    private volatile int softRecycles;
+    private volatile int hardRecycles;
+    /**
+     * 浏览器主进程pid,按命令行中的--user-data-dir查找
+     */
+    private volatile Integer browserPid;
+
+    public EngineGovernor(ChromeEngine chromeEngine, GovernorPolicy governorPolicy) {
+        this.chromeEngine = chromeEngine;
+        this.governorPolicy = governorPolicy;
+    }
+
+    /**
+     * 跳转成功后调用:计数,并按需采样内存
+     */
+    public void onNavigation() {
+        navigations++;
+        GovernorPolicy policy = governorPolicy;
+        if ((policy.getMaxNavigations() != null && navigations >= policy.getMaxNavigations())
+                || (policy.getMaxUptimeMs() != null && getUptimeMs() >= policy.getMaxUptimeMs())) {
+            pendingRecycle = RecycleEnum.HARD;
+            return;
+        }
+        int every = Math.max(1, Convert.toInt(policy.getSampleEveryNavigations(), 10));
+        if (navigations % every == 0 && isOverMemory(sample()) && pendingRecycle == null) {
+            pendingRecycle = RecycleEnum.SOFT;
+        }
+    }
+
+    /**
+     * 操作开始前调用:执行待处理的回收
+     */
+    public void beforeOperation() {
+        RecycleEnum recycle = pendingRecycle;
+        if (recycle == null) return;
+        pendingRecycle = null;
+        try {
+            if (recycle == RecycleEnum.SOFT) {
+                chromeEngine.blank();
+                softRecycles++;
+                chromeEngine.getMetricsSink().increment("engine.recycles.soft", null);
+                if (!isOverMemory(sample())) {
+                    CopilotLogger.info(() -> StrUtil.format("[GOVERNOR]-soft recycled, rss[{}] heap[{}]", FileUtil.readableFileSize(Math.max(0, lastRssBytes)), FileUtil.readableFileSize(Math.max(0, lastJsHeapBytes))));
+                    return;
+                }
+            }
+            restart();
+        } catch (Exception e) {
+            Assistant.errPrintFlush(StrUtil.format("[GOVERNOR]-recycle failed: {}", e.getMessage()));
+        }
+    }
+
+    public long getUptimeMs() {
+        return System.currentTimeMillis() - startedAt;
+    }
+
+    /**
+     * 采样内存
+     *
+     * @return 是否采样到超限需要的数据,见{@link #isOverMemory(boolean)}
+     */
+    public boolean sample() {
+        this.lastRssBytes = readRssBytes();
+        try {
+            this.lastJsHeapBytes = Convert.toLong(((JavascriptExecutor) chromeEngine.getDriver()).executeScript(JS_HEAP_SCRIPT), -1L);
+        } catch (Exception e) {
+            this.lastJsHeapBytes = -1;
+        }
+        return lastRssBytes >= 0 || lastJsHeapBytes >= 0;
+    }
+
+    private boolean isOverMemory(boolean sampled) {
+        if (!sampled) return false;
+        GovernorPolicy policy = governorPolicy;
+        return (policy.getMaxRssBytes() != null && lastRssBytes > policy.getMaxRssBytes())
+                || (policy.getMaxJsHeapBytes() != null && lastJsHeapBytes > policy.getMaxJsHeapBytes());
+    }
+
+    private void restart() {
+        long rss = lastRssBytes;
+        chromeEngine.restart();
+        hardRecycles++;
+        navigations = 0;
+        startedAt = System.currentTimeMillis();
+        browserPid = null;
+        chromeEngine.getMetricsSink().increment("engine.recycles.hard", null);
+        CopilotLogger.info(() -> StrUtil.format("[GOVERNOR]-browser restarted, rss before[{}]", FileUtil.readableFileSize(Math.max(0, rss))));
+    }
+
+    /**
+     * 浏览器主进程及其所有子进程的VmRSS之和;不是Linux或找不到进程时返回-1
+     */
+    private long readRssBytes() {
+        if (!PROC.isDirectory()) return -1;
+        String userDataDir = chromeEngine.getUserDataDir();
+        if (StrUtil.isBlank(userDataDir)) return -1;
+        File[] processes = PROC.listFiles((dir, name) -> StrUtil.isNumeric(name));
+        if (processes == null) return -1;
+        // 1.1 查找浏览器主进程,建立父子关系
+        Map<Integer, List<Integer>> children = new HashMap<>();
+        Integer pid = browserPid;
+        for (File process : processes) {
+            int current = Integer.parseInt(process.getName());
+            Integer parent = readParentPid(process);
+            if (parent != null) children.computeIfAbsent(parent, k -> new ArrayList<>()).add(current);
+            if (pid == null && isBrowserProcess(readArguments(process), userDataDir)) pid = current;
+        }
+        if (pid == null || !new File(PROC, String.valueOf(pid)).exists()) {
+            browserPid = null;
+            return -1;
+        }
+        browserPid = pid;
+        // 1.2 累加进程树的RSS
+        long total = 0;
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(pid);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            total += readVmRssBytes(new File(PROC, String.valueOf(current)));
+            queue.addAll(children.getOrDefault(current, Collections.emptyList()));
+        }
+        return total;
+    }
+
+    private static Integer readParentPid(File process) {
+        try {
+            return parseParentPid(new String(Files.readAllBytes(new File(process, "stat").toPath()), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static List<String> readArguments(File process) {
+        try {
+            return parseCmdline(Files.readAllBytes(new File(process, "cmdline").toPath()));
+        } catch (Exception e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static long readVmRssBytes(File process) {
+        try {
+            return parseVmRssBytes(Files.readAllLines(new File(process, "status").toPath(), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            return 0; // the process may have exited
+        }
+    }
+
+    /**
+     * 解析/proc/[pid]/stat中的父进程pid;进程名可能包含空格与')',从最后一个')'之后解析: state ppid ...
+     */
+    static Integer parseParentPid(String stat) {
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        return Integer.parseInt(fields[1]);
+    }
+
+    /**
+     * 解析/proc/[pid]/cmdline,参数之间以\0分隔
+     */
+    static List<String> parseCmdline(byte[] cmdline) {
+        List<String> arguments = new ArrayList<>();
+        for (String argument : new String(cmdline, StandardCharsets.UTF_8).split("\0")) {
+            if (!argument.isEmpty()) arguments.add(argument);
+        }
+        return arguments;
+    }
+
+    /**
+     * 是否为使用该用户数据目录的浏览器主进程:参数与--user-data-dir完全相等(避免slot-1匹配到slot-10),且不是--type=子进程
+     */
+    static boolean isBrowserProcess(List<String> arguments, String userDataDir) {
+        String expected = "--user-data-dir=" + userDataDir;
+        return arguments.contains(expected) && arguments.stream().noneMatch(f -> f.startsWith("--type="));
+    }
+
+    /**
+     * 解析/proc/[pid]/status中的VmRSS(kB),没有该行(例如内核线程)时为0
+     */
+    static long parseVmRssBytes(List<String> status) {
+        for (String line : status) {
+            if (line.startsWith("VmRSS:")) return Long.parseLong(StrUtil.trim(StrUtil.removeSuffix(StrUtil.removePrefix(line, "VmRSS:").trim(), "kB"))) * 1024L;
+        }
+        return 0;
+    }
+
+    @AllArgsConstructor
+    public enum RecycleEnum {
+        SOFT(1, "软回收", "soft"),
+        HARD(2, "重启浏览器", "hard"),
+        ;
+        private Integer code;
+        private String zhLabel;
+        private String enLabel;
+    }
+}
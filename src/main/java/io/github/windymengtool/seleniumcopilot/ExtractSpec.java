@@ -0,0 +1,128 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.json.JSONUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结构化提取的声明:行定位器+若干字段(相对行的定位器,取文本/属性/innerHTML),
+ * 整个声明编译为一个JS脚本,一次executeScript返回所有行的数据,不产生WebElement
+ * <pre>
+ * ExtractSpec spec = ExtractSpec.rows(By.cssSelector("table tbody tr"))
+ *         .text("name", By.cssSelector("td:nth-child(1)"))
+ *         .attr("link", By.cssSelector("a"), "href")
+ *         .html("raw", null);
+ * List&lt;Map&lt;String, Object&gt;&gt; rows = chromeEngine.finder().extract(spec);
+ * </pre>
+ */
+@Getter
+public class ExtractSpec {
+    private By rowLocator;
+    private List<Field> fields = new ArrayList<>();
+
+    private ExtractSpec(By rowLocator) {
+        this.rowLocator = rowLocator;
+    }
+
+    public static ExtractSpec rows(By rowLocator) {
+        Assert.notNull(rowLocator, "not specified row locator");
+        return new ExtractSpec(rowLocator);
+    }
+
+    /**
+     * 取元素的innerText(去除首尾空白);locator为null时取行本身
+     */
+    public ExtractSpec text(String name, By locator) {
+        return field(name, locator, FieldTypeEnum.TEXT, null);
+    }
+
+    /**
+     * 取元素的属性值;locator为null时取行本身
+     */
+    public ExtractSpec attr(String name, By locator, String attribute) {
+        Assert.notBlank(attribute, "not specified attribute of field:[{}]", name);
+        return field(name, locator, FieldTypeEnum.ATTR, attribute);
+    }
+
+    /**
+     * 取元素的innerHTML;locator为null时取行本身
+     */
+    public ExtractSpec html(String name, By locator) {
+        return field(name, locator, FieldTypeEnum.HTML, null);
+    }
+
+    private ExtractSpec field(String name, By locator, FieldTypeEnum type, String attribute) {
+        Assert.notBlank(name, "not specified field name");
+        this.fields.add(new Field(name, locator, type, attribute));
+        return this;
+    }
+
+    /**
+     * 只包含指定字段的声明,用于先计算去重key再决定是否提取整行
+     */
+    ExtractSpec only(String name) {
+        ExtractSpec spec = new ExtractSpec(rowLocator);
+        fields.stream().filter(f -> f.getName().equals(name)).forEach(spec.fields::add);
+        Assert.notEmpty(spec.fields, "field not found:[{}]", name);
+        return spec;
+    }
+
+    /**
+     * 编译为`return ...`形式的脚本,返回对象数组,每个对象为一行;字段对应的元素不存在时值为null
+     */
+    public String toScript() {
+        return "var rows=(" + Locators.toJs(rowLocator) + ")(document),extract=" + toRowJs() + ",out=[];"
+                + "for(var i=0;i<rows.length;i++){out.push(extract(rows[i]));}return out;";
+    }
+
+    /**
+     * 编译为`function(row){...}`表达式,返回一行的字段对象
+     */
+    public String toRowJs() {
+        StringBuilder script = new StringBuilder("(function(){var fields=[");
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (i > 0) script.append(",");
+            script.append("{name:").append(JSONUtil.quote(field.getName()))
+                    .append(",type:").append(field.getType().getCode())
+                    .append(",attr:").append(field.getAttribute() == null ? "null" : JSONUtil.quote(field.getAttribute()))
+                    .append(",find:").append(field.getLocator() == null ? "null" : Locators.toJs(field.getLocator()))
+                    .append("}");
+        }
+        script.append("];return function(row){var o={};")
+                .append("for(var j=0;j<fields.length;j++){var f=fields[j],el=row;")
+                .append("if(f.find){var found=f.find(row);el=found.length?found[0]:null;}")
+                .append("o[f.name]=el==null?null:f.type===1?(el.innerText||el.textContent||'').trim():f.type===2?el.getAttribute(f.attr):el.innerHTML;}")
+                .append("return o;};})()");
+        return script.toString();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Field {
+        private String name;
+        /**
+         * 相对于行的定位器,xpath需以`.`开头;为null时取行本身
+         */
+        private By locator;
+        private FieldTypeEnum type;
+        private String attribute;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public enum FieldTypeEnum {
+        TEXT(1, "文本", "text"),
+        ATTR(2, "属性", "attribute"),
+        HTML(3, "innerHTML", "inner html"),
+        ;
+        private Integer code;
+        private String zhLabel;
+        private String enLabel;
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 统一管理Fetch域拦截:Fetch.enable会覆盖之前的拦截模式,因此所有需要拦截请求的功能都注册为{@link FetchHandler},
+ * 由这里合并拦截模式并分发Fetch.requestPaused事件;没有处理器答复的请求原样放行
+ */
+@Getter
+public class FetchInterceptor {
+    private ChromeEngine chromeEngine;
+    private final List<FetchHandler> handlers = new CopyOnWriteArrayList<>();
+    private boolean listening = false;
+
+    public FetchInterceptor(ChromeEngine chromeEngine) {
+        this.chromeEngine = chromeEngine;
+    }
+
+    public synchronized FetchInterceptor addHandler(FetchHandler handler) {
+        handlers.add(handler);
+        apply();
+        return this;
+    }
+
+    /**
+     * 以所有处理器的拦截模式(重新)启用Fetch域
+     */
+    public synchronized void apply() {
+        if (handlers.isEmpty()) return;
+        Cdp cdp = chromeEngine.getCdp();
+        if (!listening) {
+            cdp.listen("Fetch.requestPaused", this::onRequestPaused);
+            listening = true;
+        }
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        handlers.forEach(f -> patterns.addAll(f.patterns()));
+        cdp.send("Fetch.enable", MapUtil.of("patterns", patterns));
+    }
+
+    private void onRequestPaused(Map<String, Object> event) {
+        Cdp cdp = chromeEngine.getCdp();
+        for (FetchHandler handler : handlers) {
+            try {
+                if (handler.handle(event, cdp)) return;
+            } catch (Exception e) {
+                Assistant.errPrintFlush(StrUtil.format("[FETCH]-handler {} failed: {}", handler.getClass().getSimpleName(), e.getMessage()));
+            }
+        }
+        cdp.fire("Fetch.continueRequest", MapUtil.of("requestId", event.get("requestId")));
+    }
+
+    /**
+     * 拦截处理器;同一请求会依次交给所有处理器,因此需要自行判断是否属于自己的拦截范围
+     */
+    public interface FetchHandler {
+        /**
+         * Fetch.enable的RequestPattern列表
+         */
+        List<Map<String, Object>> patterns();
+
+        /**
+         * 已通过cdp答复该请求(fail/fulfill/continue)时返回true
+         */
+        boolean handle(Map<String, Object> event, Cdp cdp);
+    }
+}
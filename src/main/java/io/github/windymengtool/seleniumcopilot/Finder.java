@@ -1,53 +1,115 @@
 package io.github.windymengtool.seleniumcopilot;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.date.TimeInterval;
+import cn.hutool.core.exceptions.ExceptionUtil;
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Getter
 public class Finder {
+    private static final long OBSERVE_SCRIPT_TIMEOUT_SLACK_MS = 2000L;
+    /**
+     * arguments: atLeast, timeoutMs, callback
+     */
+    private static final String OBSERVE_SCRIPT = "var callback=arguments[arguments.length-1],atLeast=arguments[0],timeoutMs=arguments[1];"
+            + "var probe=(__PROBE__);var done=false,observer=null,timer=null;"
+            + "function finish(r){if(done){return;}done=true;if(observer){observer.disconnect();}if(timer){clearTimeout(timer);}callback(r||[]);}"
+            + "function check(){try{var r=probe(document);if(r&&r.length>=atLeast){finish(r);}}catch(e){}}"
+            + "check();"
+            + "if(!done){observer=new MutationObserver(check);observer.observe(document.documentElement||document,{childList:true,subtree:true,attributes:true,characterData:true});"
+            + "timer=setTimeout(function(){var r=null;try{r=probe(document);}catch(e){}finish(r);},timeoutMs);}";
+
     private ChromeEngine chromeEngine;
     private String logPrefix = getDefaultLogPrefix();
     private String javaScript;
     private Long maxMs;
+    /**
+     * 固定轮询间隔;未指定时使用pollingStrategy或ChromeEngine上的默认轮询策略
+     */
     private Long intervalMs;
+    private PollingStrategy pollingStrategy;
     /**
      * 判断查找成功的标准:至少找到多少个元素,最小值为1
      */
     private Integer atLeast = 1;
+    /**
+     * 批量查找时按key单独指定的至少条件,未指定的key使用atLeast
+     */
+    private Map<String, Integer> atLeastMap = new HashMap<>();
     /**
      * 达到至少条件时是否立即返回,默认为true;如果为false,则会等待maxMs时间
      */
     private Boolean immediateReturnWhenAtLeast = true;
     private boolean throwEx = true;
+    /**
+     * 是否通过页面内注入的MutationObserver等待元素出现(事件驱动),失败时回退为轮询;
+     * 等待期间按maxMs临时调整当前会话的scriptTimeout,结束后恢复
+     */
+    private Boolean observe = false;
+    /**
+     * 是否使用ChromeEngine上的元素缓存(按文档代次失效),仅在立即返回模式下生效
+     */
+    private Boolean cache = false;
+    /**
+     * 流式查找每页取回的数量,见{@link #stream()}
+     */
+    private Integer pageSize = 500;
     private Consumer<Finder> consumerBeforeLoop = getDefaultBeforeLoopConsumer();
     private Consumer<Finder> consumerIntervalLog = getDefaultIntervalLogConsumer();
     private Consumer<Finder> consumerAfterLoop = getDefaultAfterLoopConsumer();
     private Consumer<Finder> consumerExceptionally;
     //
     private Boolean finding = false;
+    /**
+     * 异步查找被取消(或超过截止时间)后置为true,轮询在下一轮退出
+     */
+    private volatile boolean cancelled = false;
     private By locator;
+    private Map<String, By> locatorMap;
+    private ExtractSpec extractSpec;
     private TimeInterval timer;
     private ConditionEnum finalConditionEnum;
+    /**
+     * 显式设置logPrefix后作为指标的tag
+     */
+    private String metricsTag;
+    /**
+     * 最近一次查找的轮询次数与WebDriver调用次数
+     */
+    private int iterations;
+    private int roundTrips;
     //
     List<WebElement> resultElements;
+    Map<String, List<WebElement>> resultMap;
+    List<Map<String, Object>> resultRows;
 
 
     /**
@@ -57,6 +119,12 @@ public class Finder {
         this.chromeEngine = chromeEngine;
     }
 
+    public Finder logPrefix(String logPrefix) {
+        this.logPrefix = logPrefix;
+        this.metricsTag = logPrefix;
+        return this;
+    }
+
     public Finder maxMs(Long maxMs) {
         this.maxMs = maxMs;
         return this;
@@ -67,16 +135,44 @@ public class Finder {
         return this;
     }
 
+    public Finder pollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+        return this;
+    }
+
     public Finder atLeast(Integer atLeast) {
         this.atLeast = atLeast;
         return this;
     }
 
+    /**
+     * 批量查找中单个key的至少条件,为0表示该key可选(找不到也不阻塞其他key);未设置时使用全局atLeast
+     */
+    public Finder atLeast(String key, Integer atLeast) {
+        this.atLeastMap.put(key, atLeast);
+        return this;
+    }
+
     public Finder immediateReturnWhenAtLeast(Boolean immediateReturnWhenAtLeast) {
         this.immediateReturnWhenAtLeast = immediateReturnWhenAtLeast;
         return this;
     }
 
+    public Finder observe(Boolean observe) {
+        this.observe = observe;
+        return this;
+    }
+
+    public Finder cache(Boolean cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public Finder pageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+        return this;
+    }
+
     public Finder consumerBeforeLoop(Consumer<Finder> consumerBeforeLoop) {
         this.consumerBeforeLoop = consumerBeforeLoop;
         return this;
@@ -123,37 +219,275 @@ public class Finder {
             String target = null;
             if (finalConditionEnum.equals(ConditionEnum.LOCATOR)) {
                 target = locator.toString();
+            } else if (finalConditionEnum.equals(ConditionEnum.BATCH)) {
+                target = StrUtil.format("{} locators {}", locatorMap.size(), locatorMap.keySet());
+            } else if (finalConditionEnum.equals(ConditionEnum.EXTRACT)) {
+                target = StrUtil.format("rows {} with fields {}", extractSpec.getRowLocator(), extractSpec.getFields().stream().map(ExtractSpec.Field::getName).collect(Collectors.toList()));
             } else if (finalConditionEnum.equals(ConditionEnum.JS)) {
                 int maxLen = 100;
                 target = javaScript != null && javaScript.length() > maxLen ? javaScript.substring(0, maxLen) + "......" : javaScript;
             } else {
                 throw new RuntimeException(StrUtil.format("[{}]-not supported condition type:[{}]", finder.getLogPrefix(), finalConditionEnum));
             }
-            System.out.println(StrUtil.format("[{}]-元素开始查找:[{}]", finder.getLogPrefix(), Optional.ofNullable(target).orElse("undefined")));
+            String finalTarget = target;
+            CopilotLogger.info(() -> StrUtil.format("[{}]-元素开始查找:[{}]", finder.getLogPrefix(), Optional.ofNullable(finalTarget).orElse("undefined")));
         };
     }
 
     private Consumer<Finder> getDefaultIntervalLogConsumer() {
         return finder -> {
-            System.out.println(StrUtil.format("[{}]-元素查找中...", finder.getLogPrefix()));
-            ThreadUtil.safeSleep(500L);
+            CopilotLogger.debug(() -> StrUtil.format("[{}]-元素查找中...", finder.getLogPrefix()));
         };
     }
 
     private Consumer<Finder> getDefaultAfterLoopConsumer() {
-        return finder -> {
-            String count = Optional.ofNullable(finder).map(Finder::getResultElements).map(List::size).map(Convert::toStr).orElse("N/A");
+        return finder -> CopilotLogger.info(() -> {
+            String count = Optional.ofNullable(finder).map(f -> ConditionEnum.EXTRACT.equals(f.getFinalConditionEnum()) ? f.getResultRows() : f.getResultElements()).map(List::size).map(Convert::toStr).orElse("N/A");
             String duration = Optional.ofNullable(finder).map(Finder::getTimer).map(TimeInterval::intervalMs).map(DateUtil::formatBetween).orElse("N/A");
-            System.out.println(StrUtil.format("[{}]-元素查找结束,共找到[{}]个元素,耗时[{}]", finder.getLogPrefix(), count, duration));
-        };
+            return StrUtil.format("[{}]-元素查找结束,共找到[{}]个元素,耗时[{}]", finder.getLogPrefix(), count, duration);
+        });
     }
 
     public WebElement findOne() {
-        return loop(FindTypeEnum.ONE).get(0);
+        return recoverable(() -> {
+            List<WebElement> elements = loop(FindTypeEnum.ONE);
+            if (elements.isEmpty() && cancelled) throw new CancellationException(StrUtil.format("[{}]-find cancelled", logPrefix));
+            return elements.get(0);
+        });
     }
 
     public List<WebElement> findList() {
-        return loop(FindTypeEnum.LIST);
+        return recoverable(() -> loop(FindTypeEnum.LIST));
+    }
+
+    /**
+     * 流式查找:等待匹配数满足atLeast(最多maxMs)后在页面内打开游标,按pageSize分页取回元素;
+     * 不满足时返回空游标(throwEx为true时抛出异常)
+     */
+    public FinderCursor<WebElement> stream() {
+        Assert.isTrue(ConditionEnum.LOCATOR.equals(finalConditionEnum) || ConditionEnum.JS.equals(finalConditionEnum), "stream requires byLocator or byJavaScript");
+        String probe = finalConditionEnum == ConditionEnum.JS ? Locators.scriptToJs(StrUtil.addPrefixIfNot(javaScript, "return ")) : Locators.toJs(locator);
+        return openCursor(probe, "function(e){return e;}");
+    }
+
+    /**
+     * 按{@link ExtractSpec}流式提取,每页为字段值对象,不产生WebElement
+     */
+    public FinderCursor<Map<String, Object>> stream(ExtractSpec spec) {
+        Assert.notEmpty(spec.getFields(), "not specified extract fields");
+        return openCursor(Locators.toJs(spec.getRowLocator()), spec.toRowJs());
+    }
+
+    private <T> FinderCursor<T> openCursor(String probe, String mapJs) {
+        maxMs = maxMs == null || maxMs < 0 ? 10 * 1000L : maxMs;
+        intervalMs = intervalMs == null || intervalMs < 0 ? null : intervalMs;
+        atLeast = atLeast == null || atLeast < 1 ? 1 : atLeast;
+        pageSize = pageSize == null || pageSize < 1 ? 500 : pageSize;
+        String cursorId = Assistant.nanoIdUpperCase();
+        String script = FinderCursor.OPEN_SCRIPT.replace("__PROBE__", probe);
+        JavascriptExecutor jsExecutor = (JavascriptExecutor) chromeEngine.getDriver();
+        TimeInterval openTimer = DateUtil.timer();
+        int[] total = {0};
+        Poller poller = new Poller(resolvePollingStrategy(), maxMs);
+        boolean satisfied = poller.poll(() -> {
+            total[0] = Convert.toInt(jsExecutor.executeScript(script, cursorId), 0);
+            return total[0] >= atLeast;
+        });
+        chromeEngine.getMetricsSink().recordLatency("find.stream", metricsTag, openTimer.intervalMs());
+        if (!satisfied) {
+            chromeEngine.getMetricsSink().increment("find.stream.timeouts", metricsTag);
+            if (BooleanUtil.isTrue(throwEx)) {
+                new FinderCursor<T>(chromeEngine, cursorId, 0, pageSize, mapJs).close();
+                throw new RuntimeException(StrUtil.format("[{}]-found [{}] elements, less than [{}] within {}ms", logPrefix, total[0], atLeast, maxMs));
+            }
+        }
+        CopilotLogger.debug(() -> StrUtil.format("[{}]-cursor opened, total[{}] pageSize[{}]", logPrefix, total[0], pageSize));
+        return new FinderCursor<>(chromeEngine, cursorId, total[0], pageSize, mapJs);
+    }
+
+    /**
+     * 在ChromeEngine的执行器上查找;取消返回的future后轮询在下一轮停止
+     */
+    public CompletableFuture<WebElement> findOneAsync() {
+        return supplyAsync(this::findOne);
+    }
+
+    public CompletableFuture<List<WebElement>> findListAsync() {
+        return supplyAsync(this::findList);
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        this.cancelled = false;
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(supplier, chromeEngine.getExecutor());
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) this.cancelled = true;
+        });
+        return future;
+    }
+
+    /**
+     * 批量查找:将所有定位器编译为一个JS脚本,每轮只需一次WebDriver调用,所有key共享同一个maxMs截止时间;
+     * 每个key需满足各自的至少条件(见{@link #atLeast(String, Integer)}),无法编译为JS的定位器单独查找
+     *
+     * @return key -> 找到的元素,顺序与入参一致
+     */
+    public Map<String, List<WebElement>> findAll(Map<String, By> locators) {
+        return recoverable(() -> doFindAll(locators));
+    }
+
+    private Map<String, List<WebElement>> doFindAll(Map<String, By> locators) {
+        if (finding) {
+            throw new RuntimeException(StrUtil.format("[{}]-cannot call repeatedly:[{}]", this.logPrefix, Thread.currentThread().getStackTrace()[2].getMethodName()));
+        }
+        this.locatorMap = locators;
+        this.finalConditionEnum = ConditionEnum.BATCH;
+        Map<String, List<WebElement>> resultMap = new LinkedHashMap<>();
+        maxMs = maxMs == null || maxMs < 0 ? 10 * 1000L : maxMs;
+        intervalMs = intervalMs == null || intervalMs < 0 ? null : intervalMs;
+        atLeast = atLeast == null || atLeast < 1 ? 1 : atLeast;
+        try {
+            // 1.1
+            finding = true;
+            Assert.isTrue(intervalMs == null || intervalMs < maxMs, "intervalMs must be less than maxMs");
+            PollingStrategy strategy = resolvePollingStrategy();
+            Assert.notEmpty(locators, "not specified locators");
+            Assert.notNull(immediateReturnWhenAtLeast, "not specified immediateReturnWhenAtLeast");
+            // 1.1.1 编译为一个JS脚本,无法编译的定位器单独查找
+            Map<String, By> fallbackMap = new LinkedHashMap<>();
+            StringBuilder script = new StringBuilder("var probes={};");
+            locators.forEach((key, by) -> {
+                try {
+                    script.append("probes[").append(JSONUtil.quote(key)).append("]=").append(Locators.toJs(by)).append(";");
+                } catch (UnsupportedOperationException e) {
+                    fallbackMap.put(key, by);
+                }
+            });
+            script.append("var out={};for(var k in probes){try{out[k]=probes[k](document);}catch(e){out[k]=[];}}return out;");
+            //
+            this.timer = DateUtil.timer();
+            this.iterations = 0;
+            this.roundTrips = 0;
+            Optional.ofNullable(consumerBeforeLoop).ifPresent(f -> f.accept(this));
+            // 1.2 在规定的最大时间内查找,所有key都满足至少条件时立即返回(如果设置了立即返回)
+            WebDriver driver = chromeEngine.getDriver();
+            int attempt = 0;
+            while (!cancelled && NumberUtil.compare(timer.intervalMs(), maxMs) <= 0) {
+                attempt++;
+                Optional.ofNullable(consumerIntervalLog).ifPresent(f -> f.accept(this));
+                iterations = attempt;
+                roundTrips += fallbackMap.size() + (fallbackMap.size() == locators.size() ? 0 : 1);
+                Map<String, Object> raw = fallbackMap.size() == locators.size() ? new HashMap<>() : (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(script.toString());
+                resultMap = new LinkedHashMap<>();
+                for (String key : locators.keySet()) {
+                    if (fallbackMap.containsKey(key)) {
+                        resultMap.put(key, driver.findElements(fallbackMap.get(key)));
+                    } else {
+                        Object elements = raw.get(key);
+                        resultMap.put(key, elements instanceof List ? (List<WebElement>) elements : new ArrayList<>());
+                    }
+                }
+                boolean satisfied = resultMap.entrySet().stream().allMatch(f -> f.getValue().size() >= atLeastOf(f.getKey()));
+                if (BooleanUtil.isTrue(immediateReturnWhenAtLeast) && satisfied) {
+                    break;
+                } else {
+                    ThreadUtil.safeSleep(strategy.nextDelayMs(attempt, timer.intervalMs(), maxMs));
+                }
+            }
+            this.resultMap = resultMap;
+            this.resultElements = resultMap.values().stream().flatMap(List::stream).collect(Collectors.toList());
+            boolean timeout = !resultMap.entrySet().stream().allMatch(f -> f.getValue().size() >= atLeastOf(f.getKey()));
+            recordMetrics("find.batch", timeout, false);
+            Optional.ofNullable(consumerAfterLoop).ifPresent(f -> f.accept(this));
+            return resultMap;
+        } catch (Exception e) {
+            recordMetrics("find.batch", false, true);
+            Assistant.errPrintFlush(StrUtil.format("[{}]-loop failed @ {}ms", this.logPrefix, this.timer == null ? 0 : this.timer.intervalMs()));
+            Optional.ofNullable(this.consumerExceptionally).ifPresent(f -> f.accept(this));
+            if (chromeEngine.getSessionRecovery() != null && SessionRecovery.isSessionLost(e)) throw new SessionLostException(e);
+            if (BooleanUtil.isTrue(this.throwEx)) throw new RuntimeException(e);
+        } finally {
+            finding = false;
+            timer = null;
+        }
+        return new LinkedHashMap<>();
+    }
+
+    /**
+     * 结构化提取:将声明编译为一个JS脚本,每轮一次WebDriver调用即返回所有行的字段值,不产生WebElement;
+     * 行数满足atLeast时返回(如果设置了立即返回),否则按轮询策略重试直到maxMs
+     *
+     * @return 每行一个Map,字段顺序与声明一致
+     */
+    public List<Map<String, Object>> extract(ExtractSpec spec) {
+        return recoverable(() -> doExtract(spec));
+    }
+
+    private List<Map<String, Object>> doExtract(ExtractSpec spec) {
+        if (finding) {
+            throw new RuntimeException(StrUtil.format("[{}]-cannot call repeatedly:[{}]", this.logPrefix, Thread.currentThread().getStackTrace()[2].getMethodName()));
+        }
+        this.extractSpec = spec;
+        this.finalConditionEnum = ConditionEnum.EXTRACT;
+        List<Map<String, Object>> rows = new ArrayList<>();
+        maxMs = maxMs == null || maxMs < 0 ? 10 * 1000L : maxMs;
+        intervalMs = intervalMs == null || intervalMs < 0 ? null : intervalMs;
+        atLeast = atLeast == null || atLeast < 1 ? 1 : atLeast;
+        try {
+            // 1.1
+            finding = true;
+            Assert.isTrue(intervalMs == null || intervalMs < maxMs, "intervalMs must be less than maxMs");
+            PollingStrategy strategy = resolvePollingStrategy();
+            Assert.notNull(spec, "not specified extract spec");
+            Assert.notEmpty(spec.getFields(), "not specified extract fields");
+            Assert.notNull(immediateReturnWhenAtLeast, "not specified immediateReturnWhenAtLeast");
+            String script = spec.toScript();
+            //
+            this.timer = DateUtil.timer();
+            this.iterations = 0;
+            this.roundTrips = 0;
+            Optional.ofNullable(consumerBeforeLoop).ifPresent(f -> f.accept(this));
+            // 1.2 在规定的最大时间内提取,行数满足至少条件时立即返回(如果设置了立即返回)
+            JavascriptExecutor jsExecutor = (JavascriptExecutor) chromeEngine.getDriver();
+            int attempt = 0;
+            while (!cancelled && NumberUtil.compare(timer.intervalMs(), maxMs) <= 0) {
+                attempt++;
+                iterations = attempt;
+                roundTrips++;
+                Optional.ofNullable(consumerIntervalLog).ifPresent(f -> f.accept(this));
+                Object raw = jsExecutor.executeScript(script);
+                rows = raw instanceof List ? (List<Map<String, Object>>) raw : new ArrayList<>();
+                if (BooleanUtil.isTrue(immediateReturnWhenAtLeast) && rows.size() >= atLeast) {
+                    break;
+                } else {
+                    ThreadUtil.safeSleep(strategy.nextDelayMs(attempt, timer.intervalMs(), maxMs));
+                }
+            }
+            this.resultRows = rows;
+            recordMetrics("extract", rows.size() < atLeast, false);
+            Optional.ofNullable(consumerAfterLoop).ifPresent(f -> f.accept(this));
+            return rows;
+        } catch (Exception e) {
+            recordMetrics("extract", false, true);
+            Assistant.errPrintFlush(StrUtil.format("[{}]-loop failed @ {}ms", this.logPrefix, this.timer == null ? 0 : this.timer.intervalMs()));
+            Optional.ofNullable(this.consumerExceptionally).ifPresent(f -> f.accept(this));
+            if (chromeEngine.getSessionRecovery() != null && SessionRecovery.isSessionLost(e)) throw new SessionLostException(e);
+            if (BooleanUtil.isTrue(this.throwEx)) throw new RuntimeException(e);
+        } finally {
+            finding = false;
+            timer = null;
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * 结构化提取并按字段名转换为Bean
+     */
+    public <T> List<T> extract(ExtractSpec spec, Class<T> beanClass) {
+        return extract(spec).stream().map(row -> BeanUtil.toBean(row, beanClass)).collect(Collectors.toList());
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> extractAsync(ExtractSpec spec) {
+        return supplyAsync(() -> extract(spec));
     }
 
     private List<WebElement> loop(FindTypeEnum findTypeEnum) {
@@ -163,12 +497,13 @@ public class Finder {
         }
         List<WebElement> resultElements = new ArrayList<>();
         maxMs = maxMs == null || maxMs < 0 ? 10 * 1000L : maxMs;
-        intervalMs = intervalMs == null || intervalMs < 0 ? 1000L : intervalMs;
+        intervalMs = intervalMs == null || intervalMs < 0 ? null : intervalMs;
         atLeast = atLeast == null || atLeast < 1 ? 1 : atLeast;
         try {
             // 1.1
             finding = true;
-            Assert.isTrue(intervalMs < maxMs, "intervalMs must be less than maxMs");
+            Assert.isTrue(intervalMs == null || intervalMs < maxMs, "intervalMs must be less than maxMs");
+            PollingStrategy strategy = resolvePollingStrategy();
             Assert.notNull(finalConditionEnum, "not specified search condition type");
             Assert.notNull(immediateReturnWhenAtLeast, "not specified immediateReturnWhenAtLeast");
             Assert.isTrue(Arrays.stream(ConditionEnum.values()).anyMatch(f -> f.equals(finalConditionEnum)), "not supported condition type");
@@ -180,11 +515,36 @@ public class Finder {
             }
             //
             this.timer = DateUtil.timer();
+            this.iterations = 0;
+            this.roundTrips = 0;
             Optional.ofNullable(consumerBeforeLoop).ifPresent(f -> f.accept(this));
             // 1.2
             // 1.3 在规定的最大时间被查找元素,如果设置了`达到至少条件时立即返回`,那么在找到至少条件时立即返回,否则等待maxMs时间结束
             WebDriver driver = chromeEngine.getDriver();
-            while (NumberUtil.compare(timer.intervalMs(), maxMs) <= 0) {
+            boolean satisfied = false;
+            // 1.2.1 元素缓存:同一文档内重复查找直接返回
+            boolean useCache = BooleanUtil.isTrue(cache) && BooleanUtil.isTrue(immediateReturnWhenAtLeast);
+            String cacheKey = finalConditionEnum.equals(ConditionEnum.LOCATOR) ? ElementCache.key(findTypeEnum, locator) : ElementCache.key(findTypeEnum, javaScript);
+            if (useCache) {
+                List<WebElement> cached = chromeEngine.getElementCache().get(cacheKey);
+                if (cached != null && cached.size() >= atLeast) {
+                    resultElements = cached;
+                    satisfied = true;
+                    useCache = false;
+                }
+            }
+            // 1.2.2 事件驱动:在页面内等待,条件满足即返回
+            if (!satisfied && BooleanUtil.isTrue(observe) && BooleanUtil.isTrue(immediateReturnWhenAtLeast)) {
+                Optional.ofNullable(consumerIntervalLog).ifPresent(f -> f.accept(this));
+                resultElements = observeElements(driver, findTypeEnum);
+                roundTrips += 2;
+                satisfied = resultElements.size() >= atLeast;
+            }
+            int attempt = 0;
+            while (!satisfied && !cancelled && NumberUtil.compare(timer.intervalMs(), maxMs) <= 0) {
+                attempt++;
+                iterations = attempt;
+                roundTrips++;
                 Optional.ofNullable(consumerIntervalLog).ifPresent(f -> f.accept(this));
                 //
                 if (finalConditionEnum.equals(ConditionEnum.LOCATOR)) {
@@ -206,15 +566,24 @@ public class Finder {
                 if (BooleanUtil.isTrue(immediateReturnWhenAtLeast) && resultElements.size() >= atLeast) {
                     break;
                 } else {
-                    ThreadUtil.safeSleep(intervalMs);
+                    ThreadUtil.safeSleep(strategy.nextDelayMs(attempt, timer.intervalMs(), maxMs));
                 }
             }
+            if (useCache && resultElements.size() >= atLeast) {
+                chromeEngine.getElementCache().put(cacheKey, resultElements);
+            }
             this.resultElements = resultElements;
+            recordMetrics("find", resultElements.size() < atLeast, false);
             Optional.ofNullable(consumerAfterLoop).ifPresent(f -> f.accept(this));
             return resultElements;
         } catch (Exception e) {
+            recordMetrics("find", false, true);
+            if (ExceptionUtil.isCausedBy(e, StaleElementReferenceException.class)) {
+                chromeEngine.getElementCache().invalidate();
+            }
             Assistant.errPrintFlush(StrUtil.format("[{}]-loop failed @ {}ms", this.logPrefix, this.timer.intervalMs()));
             Optional.ofNullable(this.consumerExceptionally).ifPresent(f -> f.accept(this));
+            if (chromeEngine.getSessionRecovery() != null && SessionRecovery.isSessionLost(e)) throw new SessionLostException(e);
             if (BooleanUtil.isTrue(this.throwEx)) throw new RuntimeException(e);
         } finally {
             finding = false;
@@ -224,10 +593,88 @@ public class Finder {
         return new ArrayList<>();
     }
 
+    /**
+     * 配置了会话自愈时,会话失效后重建driver并在maxMs的剩余时间内重试
+     */
+    private <T> T recoverable(Supplier<T> operation) {
+        SessionRecovery recovery = chromeEngine.getSessionRecovery();
+        if (recovery == null) return operation.get();
+        Long originalMaxMs = this.maxMs;
+        Long originalIntervalMs = this.intervalMs;
+        try {
+            return recovery.run(originalMaxMs == null || originalMaxMs < 0 ? 10 * 1000L : originalMaxMs, remainingMs -> {
+                this.maxMs = remainingMs;
+                // 剩余时间不足一个固定间隔时改用默认策略,否则intervalMs < maxMs的校验会让重试直接失败
+                this.intervalMs = originalIntervalMs != null && originalIntervalMs >= remainingMs ? null : originalIntervalMs;
+                return operation.get();
+            });
+        } finally {
+            this.maxMs = originalMaxMs;
+            this.intervalMs = originalIntervalMs;
+        }
+    }
+
+    private void recordMetrics(String operation, boolean timeout, boolean failed) {
+        MetricsSink sink = chromeEngine.getMetricsSink();
+        sink.recordLatency(operation, metricsTag, timer == null ? 0L : timer.intervalMs());
+        sink.increment(operation + ".iterations", metricsTag, iterations);
+        sink.increment(operation + ".roundTrips", metricsTag, roundTrips);
+        if (timeout) sink.increment(operation + ".timeouts", metricsTag);
+        if (failed) sink.increment(operation + ".failures", metricsTag);
+    }
+
+    /**
+     * 批量查找中某个key的至少条件:单独设置的值允许为0,否则使用全局atLeast(不小于1)
+     */
+    private int atLeastOf(String key) {
+        Integer keyAtLeast = atLeastMap.get(key);
+        return keyAtLeast == null ? atLeast : Math.max(0, keyAtLeast);
+    }
+
+    /**
+     * 优先级:pollingStrategy > intervalMs(固定间隔) > ChromeEngine默认策略
+     */
+    private PollingStrategy resolvePollingStrategy() {
+        if (pollingStrategy != null) return pollingStrategy;
+        if (intervalMs != null) return PollingStrategy.fixed(intervalMs);
+        return chromeEngine.getPollingStrategy();
+    }
+
+    /**
+     * 注入MutationObserver,在DOM变化时重新评估条件,满足atLeast或超时后通过回调返回;
+     * 不支持的定位器或脚本执行失败(例如页面跳转)时返回空列表,由轮询逻辑兜底
+     */
+    private List<WebElement> observeElements(WebDriver driver, FindTypeEnum findTypeEnum) {
+        long remainingMs = maxMs - timer.intervalMs();
+        if (remainingMs <= 0) return new ArrayList<>();
+        try {
+            String probe = finalConditionEnum.equals(ConditionEnum.LOCATOR) ? Locators.toJs(locator) : Locators.scriptToJs(javaScript);
+            WebDriver.Timeouts timeouts = driver.manage().timeouts();
+            Duration previousTimeout = timeouts.getScriptTimeout();
+            timeouts.scriptTimeout(Duration.ofMillis(remainingMs + OBSERVE_SCRIPT_TIMEOUT_SLACK_MS));
+            Object result;
+            try {
+                result = ((JavascriptExecutor) driver).executeAsyncScript(OBSERVE_SCRIPT.replace("__PROBE__", probe), atLeast, remainingMs);
+            } finally {
+                timeouts.scriptTimeout(previousTimeout);
+            }
+            List<WebElement> elements = result instanceof List ? (List<WebElement>) result : new ArrayList<>();
+            if (findTypeEnum.equals(FindTypeEnum.ONE) && elements.size() > 1) {
+                return new ArrayList<>(elements.subList(0, 1));
+            }
+            return elements;
+        } catch (Exception e) {
+            Assistant.errPrintFlush(StrUtil.format("[{}]-observe failed, fallback to polling: {}", this.logPrefix, e.getMessage()));
+            return new ArrayList<>();
+        }
+    }
+
     @AllArgsConstructor
     public enum ConditionEnum {
         LOCATOR(1, "通过定位器", "by locator"),
         JS(2, "通过JS脚本", "by js script"),
+        BATCH(3, "通过批量定位器", "by batch locators"),
+        EXTRACT(4, "通过结构化提取", "by extract spec"),
         ;
         private Integer code;
         private String zhLabel;
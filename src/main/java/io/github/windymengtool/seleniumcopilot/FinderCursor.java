@@ -0,0 +1,110 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 页面内游标:打开时在页面内保存全部匹配结果,之后按pageSize分页取回,JVM中最多只保留一页;
+ * 可以在取完之前停止,剩余结果不会传输.用完需要close(或关闭stream)以释放页面内的引用,遍历结束时自动关闭
+ * <pre>
+ * try (Stream&lt;WebElement&gt; stream = chromeEngine.finder().byLocator(By.cssSelector("li")).pageSize(200).stream().stream()) {
+ *     stream.limit(1000).forEach(...);
+ * }
+ * </pre>
+ */
+@Getter
+public class FinderCursor<T> implements Iterator<T>, Closeable {
+    /**
+     * arguments: cursorId;返回匹配总数
+     */
+    static final String OPEN_SCRIPT = "var st=window.__copilotCursors||(window.__copilotCursors={});var r=(__PROBE__)(document);st[arguments[0]]=r;return r.length;";
+    /**
+     * arguments: cursorId, offset, size
+     */
+    private static final String PAGE_SCRIPT = "var c=(window.__copilotCursors||{})[arguments[0]];if(!c){return null;}"
+            + "var map=__MAP__,out=[],end=Math.min(c.length,arguments[1]+arguments[2]);for(var i=arguments[1];i<end;i++){out.push(map(c[i]));}return out;";
+    private static final String CLOSE_SCRIPT = "try{delete window.__copilotCursors[arguments[0]];}catch(e){}";
+
+    private ChromeEngine chromeEngine;
+    private String cursorId;
+    private int total;
+    private int pageSize;
+    private String pageScript;
+    //
+    private int offset = 0;
+    private List<T> page = new ArrayList<>();
+    private int pageIndex = 0;
+    private int pages = 0;
+    private boolean closed = false;
+    private final int sessionGeneration;
+
+    FinderCursor(ChromeEngine chromeEngine, String cursorId, int total, int pageSize, String mapJs) {
+        this.chromeEngine = chromeEngine;
+        this.cursorId = cursorId;
+        this.total = total;
+        this.pageSize = pageSize;
+        this.pageScript = PAGE_SCRIPT.replace("__MAP__", mapJs);
+        this.sessionGeneration = chromeEngine.getSessionGeneration();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (pageIndex < page.size()) return true;
+        if (closed || offset >= total) {
+            close();
+            return false;
+        }
+        fetch();
+        return pageIndex < page.size();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return page.get(pageIndex++);
+    }
+
+    private void fetch() {
+        chromeEngine.checkSession(sessionGeneration, StrUtil.format("cursor [{}]", cursorId));
+        Object raw = ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(pageScript, cursorId, offset, pageSize);
+        if (!(raw instanceof List)) {
+            close();
+            throw new IllegalStateException(StrUtil.format("cursor [{}] is lost, the page may have navigated", cursorId));
+        }
+        this.page = (List<T>) raw;
+        this.pageIndex = 0;
+        this.offset += pageSize;
+        this.pages++;
+        chromeEngine.getMetricsSink().increment("find.stream.pages", null);
+    }
+
+    /**
+     * 以Stream方式遍历,关闭stream时关闭游标
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(this, total, Spliterator.ORDERED), false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        page = new ArrayList<>();
+        try {
+            ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(CLOSE_SCRIPT, cursorId);
+        } catch (Exception e) {
+            // ignore: the page may have navigated away
+        }
+    }
+}
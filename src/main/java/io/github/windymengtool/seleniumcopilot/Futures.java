@@ -0,0 +1,69 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 异步API的公共支持:默认执行器与截止时间
+ */
+public class Futures {
+    private static volatile ExecutorService defaultExecutor;
+
+    /**
+     * 运行时支持虚拟线程(JDK 21+)时使用虚拟线程,否则使用有界的守护线程池;全局共享,懒加载
+     */
+    public static ExecutorService defaultExecutor() {
+        if (defaultExecutor == null) {
+            synchronized (Futures.class) {
+                if (defaultExecutor == null) defaultExecutor = createDefaultExecutor();
+            }
+        }
+        return defaultExecutor;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            int size = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), ThreadUtil.newNamedThreadFactory("copilot-async-", true));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * 为future设置截止时间:到期未完成则以TimeoutException结束,并取消原future(Finder/Waiter会据此停止轮询)
+     */
+    public static <T> CompletableFuture<T> withDeadline(CompletableFuture<T> future, long deadlineMs) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = Poller.sharedScheduler().schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException(StrUtil.format("not completed within {}ms", deadlineMs)))) {
+                future.cancel(false);
+            }
+        }, deadlineMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((value, e) -> {
+            timeout.cancel(false);
+            if (e == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) future.cancel(false);
+        });
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 引擎回收阈值,见{@link EngineGovernor};为null的阈值不生效
+ */
+@Data
+@Builder
+public class GovernorPolicy {
+    /**
+     * 跳转次数达到后重启浏览器
+     */
+    private Integer maxNavigations;
+    /**
+     * 浏览器运行时间达到后重启浏览器
+     */
+    private Long maxUptimeMs;
+    /**
+     * 浏览器进程树的RSS总和(字节,读取/proc,仅Linux)超过后先软回收,仍超过则重启浏览器;
+     * 浏览器主进程按--user-data-dir识别,既没有启用useUserDataCopy、arguments中也没有--user-data-dir时无法识别,该阈值不生效
+     */
+    private Long maxRssBytes;
+    /**
+     * 当前页面的JS堆(performance.memory.usedJSHeapSize)超过后先软回收,仍超过则重启浏览器
+     */
+    private Long maxJsHeapBytes;
+    /**
+     * 每隔多少次跳转采样一次内存
+     */
+    @Builder.Default
+    private Integer sampleEveryNavigations = 10;
+}
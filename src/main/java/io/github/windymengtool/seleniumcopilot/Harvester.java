@@ -0,0 +1,197 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.date.TimeInterval;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import lombok.Getter;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 无限滚动列表的增量采集:每一步只需一次executeScript,页面内用WeakSet(或key集合)记录已返回的行,只提取并返回新出现的行,然后继续向下滚动;
+ * 新行同步交给consumer,consumer处理完之前不会继续滚动(背压);连续idleMs没有新行、达到maxRows或maxMs时结束.
+ * JVM侧不保留已采集的行,总耗时与行数成线性关系
+ * <pre>
+ * int count = chromeEngine.viewer().harvester().maxRows(10000).harvest(spec, rows -&gt; save(rows));
+ * </pre>
+ */
+@Getter
+public class Harvester {
+    /**
+     * arguments: harvestId, limit;
+     * 未指定key时按元素去重,并从上一步处理到的锚点行之后继续扫描,已处理的行不会再被访问;
+     * 指定key时(虚拟列表会复用节点)每步只对当前渲染的行计算key,命中已采集的key则跳过,未命中才提取整行
+     */
+    private static final String STEP_SCRIPT = "var id=arguments[0],limit=arguments[1];"
+            + "var st=window.__copilotHarvest||(window.__copilotHarvest={});var h=st[id]||(st[id]={seen:new WeakSet(),keys:new Set(),next:0,anchor:null});"
+            + "var rows=(__ROWS__)(document),map=__MAP__,key=__KEY__,out=[],i=0;"
+            + "if(!key&&h.anchor){if(rows[h.next-1]===h.anchor){i=h.next;}else{var a=rows.indexOf(h.anchor);i=a<0?0:a+1;}}"
+            + "for(;i<rows.length&&out.length<limit;i++){var row=rows[i],k=key?key(row):null;"
+            + "if(k!=null){if(h.keys.has(k)){continue;}h.keys.add(k);}else{if(h.seen.has(row)){continue;}h.seen.add(row);}out.push(map(row));}"
+            + "if(!key&&i>0){h.next=i;h.anchor=rows[i-1];}"
+            + "if(rows.length){try{rows[rows.length-1].scrollIntoView({block:'end'});}catch(e){}}"
+            + "var se=document.scrollingElement||document.documentElement;window.scrollTo(0,se.scrollHeight);"
+            + "return out;";
+    private static final String CLEANUP_SCRIPT = "try{delete window.__copilotHarvest[arguments[0]];}catch(e){}";
+
+    private ChromeEngine chromeEngine;
+    private String logPrefix = getDefaultLogPrefix();
+    /**
+     * 显式设置logPrefix后作为指标的tag
+     */
+    private String metricsTag;
+    private Integer maxRows = 10000;
+    private Long maxMs = 60 * 1000L;
+    /**
+     * 连续多久没有新行视为已到底
+     */
+    private Long idleMs = 3000L;
+    /**
+     * 按行元素的属性去重(适用于会复用DOM节点的虚拟列表),为空时按元素本身去重
+     */
+    private String keyAttribute;
+    /**
+     * 按提取结果的字段去重,仅对{@link #harvest(ExtractSpec, Consumer)}生效
+     */
+    private String keyField;
+    /**
+     * 没有新行时的等待策略,未指定时使用ChromeEngine的默认轮询策略
+     */
+    private PollingStrategy pollingStrategy;
+    //
+    private volatile boolean stopped = false;
+    private int harvested;
+    private int steps;
+    private long durationMs;
+
+    public Harvester(ChromeEngine chromeEngine) {
+        this.chromeEngine = chromeEngine;
+    }
+
+    public Harvester logPrefix(String logPrefix) {
+        this.logPrefix = logPrefix;
+        this.metricsTag = logPrefix;
+        return this;
+    }
+
+    public Harvester maxRows(Integer maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    public Harvester maxMs(Long maxMs) {
+        this.maxMs = maxMs;
+        return this;
+    }
+
+    public Harvester idleMs(Long idleMs) {
+        this.idleMs = idleMs;
+        return this;
+    }
+
+    public Harvester keyAttribute(String keyAttribute) {
+        this.keyAttribute = keyAttribute;
+        return this;
+    }
+
+    public Harvester keyField(String keyField) {
+        this.keyField = keyField;
+        return this;
+    }
+
+    public Harvester pollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+        return this;
+    }
+
+    /**
+     * 在consumer中或其他线程调用,当前步骤完成后结束采集
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * 采集行元素,每批只包含新出现的行
+     *
+     * @return 采集的总行数
+     */
+    public int harvest(By rowLocator, Consumer<List<WebElement>> consumer) {
+        String key = StrUtil.isBlank(keyAttribute) ? "null" : "function(row){return row.getAttribute(" + JSONUtil.quote(keyAttribute) + ");}";
+        return run(Locators.toJs(rowLocator), "function(row){return row;}", key, consumer);
+    }
+
+    /**
+     * 按{@link ExtractSpec}采集,每批为新出现的行的字段值,不产生WebElement
+     *
+     * @return 采集的总行数
+     */
+    public int harvest(ExtractSpec spec, Consumer<List<Map<String, Object>>> consumer) {
+        Assert.notEmpty(spec.getFields(), "not specified extract fields");
+        String key = StrUtil.isBlank(keyField) ? "null" : "(function(){var f=" + spec.only(keyField).toRowJs() + ";return function(row){return f(row)[" + JSONUtil.quote(keyField) + "];};})()";
+        return run(Locators.toJs(spec.getRowLocator()), spec.toRowJs(), key, consumer);
+    }
+
+    private <T> int run(String rows, String map, String key, Consumer<List<T>> consumer) {
+        Assert.notNull(consumer, "not specified consumer");
+        maxRows = maxRows == null || maxRows < 1 ? Integer.MAX_VALUE : maxRows;
+        maxMs = maxMs == null || maxMs < 0 ? 60 * 1000L : maxMs;
+        idleMs = idleMs == null || idleMs < 0 ? 3000L : idleMs;
+        PollingStrategy strategy = pollingStrategy == null ? chromeEngine.getPollingStrategy() : pollingStrategy;
+        String script = STEP_SCRIPT.replace("__ROWS__", rows).replace("__MAP__", map).replace("__KEY__", key);
+        String harvestId = Assistant.nanoIdUpperCase();
+        JavascriptExecutor jsExecutor = (JavascriptExecutor) chromeEngine.getDriver();
+        int sessionGeneration = chromeEngine.getSessionGeneration();
+        TimeInterval timer = DateUtil.timer();
+        TimeInterval idleTimer = DateUtil.timer();
+        this.stopped = false;
+        this.harvested = 0;
+        this.steps = 0;
+        int idleAttempt = 0;
+        CopilotLogger.info(() -> StrUtil.format("[{}]-harvest started", logPrefix));
+        try {
+            while (!stopped && harvested < maxRows && timer.intervalMs() < maxMs) {
+                steps++;
+                chromeEngine.checkSession(sessionGeneration, StrUtil.format("[{}]-harvest", logPrefix));
+                Object raw = jsExecutor.executeScript(script, harvestId, maxRows - harvested);
+                List<T> batch = raw instanceof List ? (List<T>) raw : new ArrayList<>();
+                if (!batch.isEmpty()) {
+                    harvested += batch.size();
+                    idleAttempt = 0;
+                    idleTimer.restart();
+                    consumer.accept(batch);
+                    continue;
+                }
+                long idleElapsed = idleTimer.intervalMs();
+                if (idleElapsed >= idleMs) break;
+                ThreadUtil.safeSleep(strategy.nextDelayMs(++idleAttempt, idleElapsed, idleMs));
+            }
+        } finally {
+            this.durationMs = timer.intervalMs();
+            try {
+                jsExecutor.executeScript(CLEANUP_SCRIPT, harvestId);
+            } catch (Exception e) {
+                // ignore: the page may have navigated away
+            }
+            MetricsSink sink = chromeEngine.getMetricsSink();
+            sink.recordLatency("harvest", metricsTag, durationMs);
+            sink.increment("harvest.rows", metricsTag, harvested);
+            sink.increment("harvest.steps", metricsTag, steps);
+        }
+        CopilotLogger.info(() -> StrUtil.format("[{}]-harvest finished, rows[{}] steps[{}] @ {}ms", logPrefix, harvested, steps, durationMs));
+        return harvested;
+    }
+
+    private String getDefaultLogPrefix() {
+        return StrUtil.format("{}-{}", getClass().getSimpleName().toUpperCase(), Assistant.nanoIdUpperCase());
+    }
+}
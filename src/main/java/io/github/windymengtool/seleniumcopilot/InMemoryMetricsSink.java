@@ -0,0 +1,108 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 默认的内存指标实现:耗时使用对数-线性分桶直方图(HDR风格,相对误差约3%),计数使用AtomicLong,均为无锁写入
+ */
+@Getter
+public class InMemoryMetricsSink implements MetricsSink {
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordLatency(String operation, String tag, long ms) {
+        latencies.computeIfAbsent(key(operation, tag), k -> new Histogram()).record(ms);
+    }
+
+    @Override
+    public void increment(String counter, String tag, long delta) {
+        counters.computeIfAbsent(key(counter, tag), k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    public MetricsSnapshot snapshot() {
+        MetricsSnapshot snapshot = new MetricsSnapshot();
+        new TreeMap<>(latencies).forEach((k, v) -> snapshot.getLatencies().put(k, v.snapshot()));
+        new TreeMap<>(counters).forEach((k, v) -> snapshot.getCounters().put(k, v.get()));
+        return snapshot;
+    }
+
+    public void reset() {
+        latencies.clear();
+        counters.clear();
+    }
+
+    private static String key(String name, String tag) {
+        return tag == null ? name : name + "{" + tag + "}";
+    }
+
+    /**
+     * 小于2^SUB_BITS的值精确记录,更大的值按2的幂分段,每段再等分为2^SUB_BITS个桶
+     */
+    static class Histogram {
+        private static final int SUB_BITS = 5;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        void record(long value) {
+            long v = Math.max(0L, value);
+            buckets.incrementAndGet(index(v));
+            count.incrementAndGet();
+            sum.addAndGet(v);
+            min.accumulateAndGet(v, Math::min);
+            max.accumulateAndGet(v, Math::max);
+        }
+
+        MetricsSnapshot.Latency snapshot() {
+            MetricsSnapshot.Latency latency = new MetricsSnapshot.Latency();
+            long total = count.get();
+            latency.setCount(total);
+            if (total == 0) return latency;
+            latency.setMin(min.get());
+            latency.setMax(max.get());
+            latency.setMean((double) sum.get() / total);
+            latency.setP50(percentile(0.50, total));
+            latency.setP90(percentile(0.90, total));
+            latency.setP99(percentile(0.99, total));
+            latency.setP999(percentile(0.999, total));
+            return latency;
+        }
+
+        private long percentile(double quantile, long total) {
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(upperBound(i), max.get());
+            }
+            return max.get();
+        }
+
+        static int index(long v) {
+            if (v < SUB_COUNT) return (int) v;
+            int magnitude = 63 - Long.numberOfLeadingZeros(v);
+            int shift = magnitude - SUB_BITS;
+            int sub = (int) (v >>> shift) - SUB_COUNT;
+            return SUB_COUNT + shift * SUB_COUNT + sub;
+        }
+
+        static long upperBound(int index) {
+            if (index < SUB_COUNT) return index;
+            int shift = (index - SUB_COUNT) / SUB_COUNT;
+            int sub = (index - SUB_COUNT) % SUB_COUNT;
+            return ((long) (SUB_COUNT + sub + 1) << shift) - 1;
+        }
+    }
+}
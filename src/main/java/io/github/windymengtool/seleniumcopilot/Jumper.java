@@ -3,16 +3,19 @@ package io.github.windymengtool.seleniumcopilot;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.date.TimeInterval;
+import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.Validator;
-import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.StrUtil;
 import lombok.Getter;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 
 import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 @Getter
@@ -20,15 +23,29 @@ public class Jumper {
     private ChromeEngine chromeEngine;
     private String logPrefix = getDefaultLogPrefix();
     private Boolean throwEx = true;
+    /**
+     * 显式设置logPrefix后作为指标的tag
+     */
+    private String metricsTag;
     private String url;
     private Long maxMs;
+    /**
+     * 就绪条件:driver.get返回后轮询,成立即视为跳转完成;页面加载策略为NONE且未指定时默认为domContentLoaded
+     */
+    private Readiness readiness;
     private Consumer<Jumper> consumerBeforeJump;
     private Consumer<Jumper> consumerAfterJump = getDefaultAfterJumpConsumer();
     private Consumer<Jumper> consumerExceptionally;
     private Consumer<Jumper> consumerIntervalLog = getDefaultIntervalLogConsumer();
     //
-    private Boolean jumping = false;
+    private volatile Boolean jumping = false;
+    private ScheduledFuture<?> intervalLogFuture;
     private TimeInterval timer;
+    /**
+     * 本次跳转期间被拦截的请求数与实际传输的字节数,仅在ChromeEngine配置了blockingRules时统计
+     */
+    private Long blockedRequests;
+    private Long loadedBytes;
 
     /**
      * the only constructor
@@ -39,6 +56,7 @@ public class Jumper {
 
     public Jumper logPrefix(String logPrefix) {
         this.logPrefix = logPrefix;
+        this.metricsTag = logPrefix;
         return this;
     }
 
@@ -57,6 +75,11 @@ public class Jumper {
         return this;
     }
 
+    public Jumper readiness(Readiness readiness) {
+        this.readiness = readiness;
+        return this;
+    }
+
     public Jumper consumerBeforeJump(Consumer<Jumper> consumerBeforeJump) {
         this.consumerBeforeJump = consumerBeforeJump;
         return this;
@@ -77,39 +100,102 @@ public class Jumper {
         return this;
     }
 
+    /**
+     * 配置了会话自愈时,会话失效后重建driver并在maxMs的剩余时间内重试
+     */
     public void jump() {
+        SessionRecovery recovery = this.chromeEngine.getSessionRecovery();
+        if (recovery == null) {
+            doJump();
+            return;
+        }
+        Long originalMaxMs = this.maxMs;
+        try {
+            recovery.run(originalMaxMs == null || originalMaxMs < 0 ? 10000L : originalMaxMs, remainingMs -> {
+                this.maxMs = remainingMs;
+                doJump();
+                return null;
+            });
+        } finally {
+            this.maxMs = originalMaxMs;
+        }
+    }
+
+    private void doJump() {
         if (jumping) throw new RuntimeException("Jumper is jumping");
         try {
             // 1.0
             jumping = true;
+            Optional.ofNullable(this.chromeEngine.getGovernor()).ifPresent(EngineGovernor::beforeOperation);
             this.timer = DateUtil.timer();
             formatVerify();
             // 1.1
             Optional.ofNullable(consumerBeforeJump).ifPresent(f -> f.accept(this));
             // 1.2
-            CompletableFuture.runAsync(() -> {
-                while (jumping) {
-                    Optional.ofNullable(consumerIntervalLog).ifPresent(f -> f.accept(this));
-                    ThreadUtil.safeSleep(1000L);
-                }
-            });
+            intervalLogFuture = consumerIntervalLog == null ? null : Poller.sharedScheduler().scheduleWithFixedDelay(() -> {
+                if (jumping) consumerIntervalLog.accept(this);
+            }, 0L, 1000L, TimeUnit.MILLISECONDS);
             // 1.3
-            this.maxMs = this.maxMs == null || this.maxMs < 10000 ? 10000 : this.maxMs;
+            this.maxMs = this.maxMs == null || this.maxMs < 0 ? 10000 : this.maxMs;
             WebDriver driver = this.chromeEngine.getDriver();
             driver.manage().timeouts().pageLoadTimeout(Duration.ofMillis(this.maxMs));
+            this.chromeEngine.getElementCache().invalidate();
+            ResourceBlocker resourceBlocker = this.chromeEngine.getResourceBlocker();
+            long blockedBefore = resourceBlocker == null ? 0L : resourceBlocker.getBlockedRequests().get();
+            long bytesBefore = resourceBlocker == null ? 0L : resourceBlocker.getLoadedBytes().get();
+            Readiness targetReadiness = Optional.ofNullable(this.readiness).orElseGet(this::getDefaultReadiness);
+            String previousUrl = targetReadiness == null ? null : Readiness.markLeaving(driver);
+            Readiness finalReadiness = previousUrl == null ? targetReadiness : Readiness.afterLeaving(previousUrl, targetReadiness);
             driver.get(this.url);
+            // 1.3.1 等待就绪条件(先确认已离开旧文档)
+            if (finalReadiness != null) {
+                long remainingMs = Math.max(0L, this.maxMs - this.timer.intervalMs());
+                Poller poller = new Poller(this.chromeEngine.getPollingStrategy(), remainingMs);
+                boolean ready = poller.poll(() -> {
+                    try {
+                        return finalReadiness.isReady(driver);
+                    } catch (Exception e) {
+                        return false; // the document may be replaced while navigating
+                    }
+                });
+                this.chromeEngine.getMetricsSink().increment("jump.readiness.iterations", metricsTag, poller.getAttempts().get());
+                if (!ready) this.chromeEngine.getMetricsSink().increment("jump.timeouts", metricsTag);
+                if (!ready) throw new RuntimeException(StrUtil.format("[{}]-page not ready within {}ms", this.logPrefix, this.maxMs));
+            }
+            if (resourceBlocker != null) {
+                this.blockedRequests = resourceBlocker.getBlockedRequests().get() - blockedBefore;
+                this.loadedBytes = resourceBlocker.getLoadedBytes().get() - bytesBefore;
+            }
+            this.chromeEngine.getMetricsSink().recordLatency("jump", metricsTag, this.timer.intervalMs());
+            Optional.ofNullable(this.chromeEngine.getSessionRecovery()).ifPresent(SessionRecovery::checkpoint);
+            Optional.ofNullable(this.chromeEngine.getGovernor()).ifPresent(EngineGovernor::onNavigation);
             Optional.ofNullable(this.consumerAfterJump).ifPresent(f -> f.accept(this));
         } catch (Exception e) {
             // 1.4
+            this.chromeEngine.getMetricsSink().increment("jump.failures", metricsTag);
             Assistant.errPrintFlush(StrUtil.format("[{}]-jump failed @ {}ms", this.logPrefix, getPrettyMs(this)));
             Optional.ofNullable(this.consumerExceptionally).ifPresent(f -> f.accept(this));
+            if (this.chromeEngine.getSessionRecovery() != null && SessionRecovery.isSessionLost(e)) throw new SessionLostException(e);
             if (BooleanUtil.isTrue(this.throwEx)) throw new RuntimeException(e);
         } finally {
             jumping = false;
+            Optional.ofNullable(intervalLogFuture).ifPresent(f -> f.cancel(false));
             this.timer = null;
         }
     }
 
+    /**
+     * 在ChromeEngine的执行器上跳转;页面加载本身无法中断,取消只会让调用方不再等待
+     */
+    public CompletableFuture<Void> jumpAsync() {
+        return CompletableFuture.runAsync(this::jump, this.chromeEngine.getExecutor());
+    }
+
+    private Readiness getDefaultReadiness() {
+        PageLoadStrategy pageLoadStrategy = this.chromeEngine.getChromeProperties().getPageLoadStrategy();
+        return PageLoadStrategy.NONE.equals(pageLoadStrategy) ? Readiness.domContentLoaded() : null;
+    }
+
     private void formatVerify() {
         if (!Validator.isUrl(this.url)) {
             throw new RuntimeException(StrUtil.format("[{}]-url is not valid which is [{}]", this.logPrefix, this.url));
@@ -122,15 +208,15 @@ public class Jumper {
 
     private Consumer<Jumper> getDefaultIntervalLogConsumer() {
         return jumper -> {
-            System.out.println(StrUtil.format("[{}]-jumping[{}]-[{}]", jumper.getLogPrefix(), getPrettyMs(jumper), getPrettyUrl(jumper)));
-            ThreadUtil.safeSleep(500L);
+            CopilotLogger.info(() -> StrUtil.format("[{}]-jumping[{}]-[{}]", jumper.getLogPrefix(), getPrettyMs(jumper), getPrettyUrl(jumper)));
         };
     }
 
     private Consumer<Jumper> getDefaultAfterJumpConsumer() {
-        return jumper -> {
-            System.out.println(StrUtil.format("[{}]-jumped done [{}]-[{}]", jumper.getLogPrefix(), getPrettyMs(jumper), getPrettyUrl(jumper)));
-        };
+        return jumper -> CopilotLogger.info(() -> {
+            String blocked = jumper.getBlockedRequests() == null ? "" : StrUtil.format("-blocked[{}]-loaded[{}]", jumper.getBlockedRequests(), FileUtil.readableFileSize(jumper.getLoadedBytes()));
+            return StrUtil.format("[{}]-jumped done [{}]-[{}]{}", jumper.getLogPrefix(), getPrettyMs(jumper), getPrettyUrl(jumper), blocked);
+        });
     }
 
     private String getPrettyMs(Jumper jumper) {
@@ -0,0 +1,75 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import org.openqa.selenium.By;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * 将Selenium定位器编译为页面内执行的JS函数,便于在一次executeScript中完成查找
+ */
+public class Locators {
+    /**
+     * 编译为`function(root){...}`表达式,调用后返回元素数组
+     */
+    public static String toJs(By locator) {
+        if (!(locator instanceof By.Remotable)) {
+            throw new UnsupportedOperationException(StrUtil.format("locator can not be compiled to javascript:[{}]", locator));
+        }
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        String css = toCss(parameters.using(), String.valueOf(parameters.value()), Locators::escapeCssIdentifier);
+        if (css != null) {
+            return "function(root){return Array.prototype.slice.call(root.querySelectorAll(" + JSONUtil.quote(css) + "));}";
+        }
+        String value = JSONUtil.quote(String.valueOf(parameters.value()));
+        switch (parameters.using()) {
+            case "xpath":
+                return "function(root){var s=document.evaluate(" + value + ",root,null,XPathResult.ORDERED_NODE_SNAPSHOT_TYPE,null),r=[];for(var i=0;i<s.snapshotLength;i++){r.push(s.snapshotItem(i));}return r;}";
+            case "link text":
+                return "function(root){return Array.prototype.filter.call(root.querySelectorAll('a'),function(a){return (a.innerText||'').trim()===" + value + ";});}";
+            case "partial link text":
+                return "function(root){return Array.prototype.filter.call(root.querySelectorAll('a'),function(a){return (a.innerText||'').indexOf(" + value + ")>=0;});}";
+            default:
+                throw new UnsupportedOperationException(StrUtil.format("locator strategy can not be compiled to javascript:[{}]", parameters.using()));
+        }
+    }
+
+    /**
+     * 可用CSS选择器表达的定位策略改写为CSS(id/name/class name的改写与Selenium下发命令时一致),其余返回null;
+     * 标识符的转义由调用方提供,浏览器与jsoup支持的转义写法不同
+     */
+    static String toCss(String using, String value, UnaryOperator<String> escapeIdentifier) {
+        switch (using) {
+            case "css selector":
+            case "tag name":
+                return value;
+            case "id":
+                return "#" + escapeIdentifier.apply(value);
+            case "name":
+                return "*[name=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]";
+            case "class name":
+                return "." + escapeIdentifier.apply(value);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按浏览器CSS规则转义标识符,与Selenium的cssEscape相同:特殊字符加反斜杠,首位数字写为十六进制转义
+     */
+    static String escapeCssIdentifier(String value) {
+        String escaped = value.replaceAll("([\\s'\"\\\\#.:;,!?+<>=~*^$|%&@`{}\\-/\\[\\]()])", "\\\\$1");
+        if (!escaped.isEmpty() && Character.isDigit(escaped.charAt(0))) {
+            escaped = "\\" + (30 + Integer.parseInt(escaped.substring(0, 1))) + " " + escaped.substring(1);
+        }
+        return escaped;
+    }
+
+    /**
+     * 将`return ...`形式的JS脚本包装为`function(root){...}`表达式,结果统一转为元素数组
+     */
+    public static String scriptToJs(String javaScript) {
+        return "function(root){var r=(function(){" + javaScript + "})();if(r==null){return [];}if(Array.isArray(r)){return r;}if(typeof r.length==='number'&&!r.nodeType){return Array.prototype.slice.call(r);}return [r];}";
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.windymengtool.seleniumcopilot;
+
+/**
+ * 指标出口,挂载在ChromeEngine上,由Jumper/Finder/Waiter等记录耗时与计数;
+ * operation为操作名(jump、find、wait...),tag为显式设置的logPrefix,未设置时为null
+ */
+public interface MetricsSink {
+    MetricsSink NOOP = new MetricsSink() {
+        @Override
+        public void recordLatency(String operation, String tag, long ms) {
+        }
+
+        @Override
+        public void increment(String counter, String tag, long delta) {
+        }
+    };
+
+    void recordLatency(String operation, String tag, long ms);
+
+    void increment(String counter, String tag, long delta);
+
+    default void increment(String counter, String tag) {
+        increment(counter, tag, 1L);
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.json.JSONUtil;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 某一时刻的指标快照,key为`name`或`name{tag}`
+ */
+@Data
+public class MetricsSnapshot {
+    private long timestamp = System.currentTimeMillis();
+    private Map<String, Latency> latencies = new LinkedHashMap<>();
+    private Map<String, Long> counters = new LinkedHashMap<>();
+
+    public String toJson() {
+        return JSONUtil.toJsonStr(this);
+    }
+
+    @Data
+    public static class Latency {
+        private long count;
+        private long min;
+        private long max;
+        private double mean;
+        private long p50;
+        private long p90;
+        private long p99;
+        private long p999;
+    }
+}
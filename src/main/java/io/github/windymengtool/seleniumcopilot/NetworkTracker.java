@@ -0,0 +1,167 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 通过DevTools的Network事件跟踪当前会话中进行中的请求,供{@link Waiter#untilNetworkIdle(long, int)}事件驱动地等待网络空闲;
+ * 只能看到启用之后发出的请求,如需覆盖整个页面加载,应在跳转前调用{@link ChromeEngine#networkTracker()}.
+ * 主框架导航后丢弃旧文档的请求(它们可能不再有loadingFinished/loadingFailed事件),超过maxRequestAgeMs仍未结束的请求也不再计入
+ */
+@Getter
+public class NetworkTracker {
+    private ChromeEngine chromeEngine;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    /**
+     * requestId -> 进行中的请求
+     */
+    private final Map<String, Request> inflight = new HashMap<>();
+    /**
+     * 请求开始后超过该时间仍未结束则视为已丢失(例如被取消而没有事件)
+     */
+    private Long maxRequestAgeMs = 30 * 1000L;
+    /**
+     * 最近一次请求开始或结束的时间(System.nanoTime)
+     */
+    private volatile long lastActivityNanos = System.nanoTime();
+    private volatile long startedRequests;
+    private volatile long finishedRequests;
+
+    public NetworkTracker(ChromeEngine chromeEngine) {
+        this.chromeEngine = chromeEngine;
+    }
+
+    public NetworkTracker maxRequestAgeMs(Long maxRequestAgeMs) {
+        this.maxRequestAgeMs = maxRequestAgeMs;
+        return this;
+    }
+
+    /**
+     * 在当前会话上开始跟踪
+     */
+    public void apply() {
+        Cdp cdp = chromeEngine.getCdp();
+        cdp.listen("Network.requestWillBeSent", event -> {
+            // EventSource等长连接不会结束,不计入
+            if (StrUtil.equals(Convert.toStr(event.get("type")), "EventSource")) return;
+            started(Convert.toStr(event.get("requestId")), Convert.toStr(event.get("loaderId")));
+        });
+        cdp.listen("Network.loadingFinished", event -> finished(Convert.toStr(event.get("requestId"))));
+        cdp.listen("Network.loadingFailed", event -> finished(Convert.toStr(event.get("requestId"))));
+        cdp.listen("Page.frameNavigated", event -> {
+            Map<String, Object> frame = (Map<String, Object>) event.get("frame");
+            if (frame != null && frame.get("parentId") == null) navigated(Convert.toStr(frame.get("loaderId")));
+        });
+        cdp.send("Network.enable");
+        cdp.send("Page.enable");
+    }
+
+    private void started(String requestId, String loaderId) {
+        if (requestId == null) return;
+        lock.lock();
+        try {
+            if (inflight.containsKey(requestId)) return; // 重定向会以相同requestId再次发出requestWillBeSent
+            inflight.put(requestId, new Request(loaderId, System.nanoTime()));
+            startedRequests++;
+            activity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void finished(String requestId) {
+        if (requestId == null) return;
+        lock.lock();
+        try {
+            if (inflight.remove(requestId) == null) return;
+            finishedRequests++;
+            activity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 主框架提交了新文档:丢弃属于其他文档(loaderId不同)的请求
+     */
+    private void navigated(String loaderId) {
+        lock.lock();
+        try {
+            if (inflight.values().removeIf(f -> !StrUtil.equals(f.loaderId, loaderId))) activity();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void activity() {
+        lastActivityNanos = System.nanoTime();
+        changed.signalAll();
+    }
+
+    /**
+     * 丢弃超过maxRequestAgeMs的请求,返回剩余请求中最早的过期时间(没有时为Long.MAX_VALUE);需持有锁
+     */
+    private long expire(long now) {
+        if (maxRequestAgeMs == null || maxRequestAgeMs <= 0) return Long.MAX_VALUE;
+        long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxRequestAgeMs);
+        inflight.values().removeIf(f -> now - f.startedNanos >= maxAgeNanos);
+        return inflight.values().stream().mapToLong(f -> f.startedNanos + maxAgeNanos).min().orElse(Long.MAX_VALUE);
+    }
+
+    public int getInflightCount() {
+        lock.lock();
+        try {
+            expire(System.nanoTime());
+            return inflight.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待进行中的请求数不超过maxInflight且持续idleMs没有请求开始或结束;只在事件到达或时间到期时醒来,不轮询
+     *
+     * @return 在maxMs内达到空闲返回true
+     */
+    public boolean awaitIdle(long idleMs, int maxInflight, long maxMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMs);
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMs);
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long nextExpiry = expire(now);
+                long waitNanos;
+                if (inflight.size() <= maxInflight) {
+                    long quietNanos = now - lastActivityNanos;
+                    if (quietNanos >= idleNanos) return true;
+                    waitNanos = idleNanos - quietNanos;
+                } else {
+                    waitNanos = nextExpiry == Long.MAX_VALUE ? deadline - now : Math.max(1L, nextExpiry - now);
+                }
+                if (now >= deadline) return false;
+                changed.awaitNanos(Math.min(waitNanos, deadline - now));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Request {
+        private final String loaderId;
+        private final long startedNanos;
+
+        private Request(String loaderId, long startedNanos) {
+            this.loaderId = loaderId;
+            this.startedNanos = startedNanos;
+        }
+    }
+}
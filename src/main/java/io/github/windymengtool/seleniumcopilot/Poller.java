@@ -0,0 +1,110 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.date.TimeInterval;
+import cn.hutool.core.thread.ThreadUtil;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 按{@link PollingStrategy}反复探测条件,直到条件成立或超过maxMs;
+ * 同步模式在当前线程休眠,异步模式由共享的调度线程池计时、在executor上执行探测,等待期间不占用线程;
+ * 探测可能阻塞(例如WebDriver调用),异步模式应指定executor,避免阻塞调度线程池而拖慢其他截止时间
+ */
+@Getter
+public class Poller {
+    private static final ScheduledExecutorService SHARED_SCHEDULER = Executors.newScheduledThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), ThreadUtil.newNamedThreadFactory("copilot-poller-", true));
+
+    private PollingStrategy pollingStrategy;
+    private Long maxMs;
+    private ScheduledExecutorService scheduler = SHARED_SCHEDULER;
+    /**
+     * 异步模式执行探测的执行器,为null时在scheduler上执行
+     */
+    private Executor executor;
+    /**
+     * 最近一次轮询的探测次数
+     */
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    public Poller(PollingStrategy pollingStrategy, Long maxMs) {
+        this.pollingStrategy = pollingStrategy;
+        this.maxMs = maxMs;
+    }
+
+    public static ScheduledExecutorService sharedScheduler() {
+        return SHARED_SCHEDULER;
+    }
+
+    public Poller scheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    public Poller executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 在当前线程轮询,探测中抛出的异常直接向上抛出
+     */
+    public boolean poll(BooleanSupplier probe) {
+        attempts.set(0);
+        TimeInterval timer = DateUtil.timer();
+        while (true) {
+            int attempt = attempts.incrementAndGet();
+            if (probe.getAsBoolean()) return true;
+            long elapsed = timer.intervalMs();
+            if (elapsed >= maxMs) return false;
+            ThreadUtil.safeSleep(pollingStrategy.nextDelayMs(attempt, elapsed, maxMs));
+        }
+    }
+
+    /**
+     * 异步轮询;取消返回的future即停止后续探测
+     */
+    public CompletableFuture<Boolean> pollAsync(BooleanSupplier probe) {
+        attempts.set(0);
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        TimeInterval timer = DateUtil.timer();
+        dispatch(probe, future, timer);
+        return future;
+    }
+
+    private void dispatch(BooleanSupplier probe, CompletableFuture<Boolean> future, TimeInterval timer) {
+        try {
+            (executor == null ? scheduler : executor).execute(() -> probeAsync(probe, future, timer));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private void probeAsync(BooleanSupplier probe, CompletableFuture<Boolean> future, TimeInterval timer) {
+        if (future.isDone()) return;
+        try {
+            int attempt = attempts.incrementAndGet();
+            if (probe.getAsBoolean()) {
+                future.complete(true);
+                return;
+            }
+            long elapsed = timer.intervalMs();
+            if (elapsed >= maxMs) {
+                future.complete(false);
+                return;
+            }
+            scheduler.schedule(() -> dispatch(probe, future, timer), pollingStrategy.nextDelayMs(attempt, elapsed, maxMs), TimeUnit.MILLISECONDS);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.windymengtool.seleniumcopilot;
+
+/**
+ * 轮询策略:根据已探测次数与已用时间计算下一次探测前的等待时间,Finder与Waiter共用
+ */
+public interface PollingStrategy {
+    /**
+     * @param attempt   已完成的探测次数,从1开始
+     * @param elapsedMs 已用时间
+     * @param maxMs     最长等待时间
+     * @return 下一次探测前的等待时间,不会超过剩余时间
+     */
+    long nextDelayMs(int attempt, long elapsedMs, long maxMs);
+
+    /**
+     * 固定间隔,与旧版行为一致
+     */
+    static PollingStrategy fixed(long intervalMs) {
+        return (attempt, elapsedMs, maxMs) -> Math.max(0L, Math.min(intervalMs, maxMs - elapsedMs));
+    }
+
+    /**
+     * 快速首探 + 指数退避 + 抖动
+     */
+    static BackoffPollingStrategy backoff() {
+        return new BackoffPollingStrategy();
+    }
+}
@@ -0,0 +1,280 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.date.TimeInterval;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户数据目录克隆:每个引擎独占一个槽位目录(root/slot-N,通过文件锁跨进程互斥),
+ * 跳过缓存目录,不可变目录使用硬链接,其余文件并行复制,且仅同步自上次克隆以来有变化的文件
+ */
+@Getter
+public class ProfileCloner {
+    /**
+     * 当前JVM中已持有的槽位锁,避免同一JVM内重复加锁抛出OverlappingFileLockException
+     */
+    private static final Set<String> HELD_SLOTS = ConcurrentHashMap.newKeySet();
+    /**
+     * Chrome运行时在用户数据目录中创建的单例锁文件,不能被复制
+     */
+    private static final Set<String> RUNTIME_FILES = CollectionUtil.newHashSet("SingletonLock", "SingletonSocket", "SingletonCookie", "lockfile");
+
+    private String source;
+    private String root;
+    private List<String> excludes = new ArrayList<>();
+    private List<String> hardLinks = new ArrayList<>();
+    private Integer parallelism = 4;
+    private Integer maxSlots = 64;
+
+    public ProfileCloner(String source) {
+        this.source = source;
+    }
+
+    public ProfileCloner root(String root) {
+        this.root = root;
+        return this;
+    }
+
+    /**
+     * 不复制(也不清理)的文件或目录名,例如Cache、Code Cache、GPUCache
+     */
+    public ProfileCloner excludes(List<String> excludes) {
+        this.excludes = excludes;
+        return this;
+    }
+
+    /**
+     * 视为不可变、以硬链接代替复制的目录(相对用户数据目录),例如Extensions
+     */
+    public ProfileCloner hardLinks(List<String> hardLinks) {
+        this.hardLinks = hardLinks;
+        return this;
+    }
+
+    public ProfileCloner parallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public ProfileCloner maxSlots(Integer maxSlots) {
+        this.maxSlots = maxSlots;
+        return this;
+    }
+
+    /**
+     * 占用一个空闲槽位并将源目录增量同步到该槽位,返回的克隆在关闭前独占该目录
+     */
+    public ProfileClone acquire() {
+        Assert.isTrue(StrUtil.isNotBlank(source) && FileUtil.exist(source) && FileUtil.isDirectory(source), "`userData` must be a valid directory");
+        String rootPath = StrUtil.isNotBlank(root) ? root : FileUtil.getAbsolutePath(FileUtil.file(FileUtil.getParent(source, 1), "user_data_copy"));
+        FileUtil.mkdir(rootPath);
+        int slots = maxSlots == null || maxSlots < 1 ? 1 : maxSlots;
+        for (int slot = 0; slot < slots; slot++) {
+            ProfileClone clone = tryLock(rootPath, slot);
+            if (clone == null) continue;
+            try {
+                sync(clone);
+                return clone;
+            } catch (RuntimeException e) {
+                clone.close();
+                throw e;
+            }
+        }
+        throw new RuntimeException(StrUtil.format("no free user data slot under [{}], all {} slots are in use", rootPath, slots));
+    }
+
+    private ProfileClone tryLock(String rootPath, int slot) {
+        File dir = FileUtil.file(rootPath, "slot-" + slot);
+        String key = FileUtil.getAbsolutePath(dir);
+        if (!HELD_SLOTS.add(key)) return null;
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(key + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                HELD_SLOTS.remove(key);
+                return null;
+            }
+            FileUtil.mkdir(dir);
+            return new ProfileClone(dir, slot, key, channel, lock);
+        } catch (IOException | OverlappingFileLockException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // ignore
+                }
+            }
+            HELD_SLOTS.remove(key);
+            return null;
+        }
+    }
+
+    private void sync(ProfileClone clone) {
+        TimeInterval timer = DateUtil.timer();
+        Path from = Paths.get(source).toAbsolutePath();
+        Path to = clone.getDir().toPath();
+        Set<String> excluded = new HashSet<>(CollectionUtil.emptyIfNull(excludes));
+        excluded.addAll(RUNTIME_FILES);
+        List<Path> linkRoots = new ArrayList<>();
+        CollectionUtil.emptyIfNull(hardLinks).forEach(f -> linkRoots.add(from.resolve(f)));
+        Set<Path> expected = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism == null || parallelism < 1 ? 1 : parallelism, ThreadUtil.newNamedThreadFactory("profile-clone-", true));
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            // 1.1 源目录 -> 槽位目录
+            Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!dir.equals(from) && excluded.contains(dir.getFileName().toString())) return FileVisitResult.SKIP_SUBTREE;
+                    Path target = to.resolve(from.relativize(dir));
+                    expected.add(target);
+                    Files.createDirectories(target);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (excluded.contains(file.getFileName().toString()) || !attrs.isRegularFile()) return FileVisitResult.CONTINUE;
+                    Path target = to.resolve(from.relativize(file));
+                    expected.add(target);
+                    boolean link = linkRoots.stream().anyMatch(file::startsWith);
+                    futures.add(executor.submit(() -> syncFile(clone, file, target, attrs, link)));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            for (Future<?> future : futures) future.get();
+            // 1.2 删除源目录中已不存在的文件,排除项(如缓存)保留在槽位中以便复用
+            Files.walkFileTree(to, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(to) && excluded.contains(dir.getFileName().toString())) return FileVisitResult.SKIP_SUBTREE;
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (!excluded.contains(file.getFileName().toString()) && !expected.contains(file)) Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    if (!dir.equals(to) && !expected.contains(dir)) FileUtil.del(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (Exception e) {
+            if (StrUtil.contains(e.getMessage(), "另一个程序正在使用此文件，进程无法访问") || StrUtil.containsIgnoreCase(e.getMessage(), "being used by another process")) {
+                Assistant.errPrintWrapper("User data directory copy failed, please close Google Chrome and try again\r\n用户数据目录复制失败，请关闭Google Chrome后重试");
+            }
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        clone.durationMs = timer.intervalMs();
+        CopilotLogger.info(() -> StrUtil.format("[{}]-user data synced: copied[{}] linked[{}] unchanged[{}] @ {}ms", clone.getDir().getName(), clone.copied, clone.linked, clone.unchanged, clone.durationMs));
+    }
+
+    private void syncFile(ProfileClone clone, Path file, Path target, BasicFileAttributes attrs, boolean link) {
+        try {
+            if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+                if (link && Files.isSameFile(file, target)) {
+                    clone.unchanged.incrementAndGet();
+                    return;
+                }
+                BasicFileAttributes targetAttrs = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (!link && targetAttrs.size() == attrs.size() && targetAttrs.lastModifiedTime().toMillis() == attrs.lastModifiedTime().toMillis()) {
+                    clone.unchanged.incrementAndGet();
+                    return;
+                }
+                Files.delete(target);
+            }
+            if (link) {
+                try {
+                    Files.createLink(target, file);
+                    clone.linked.incrementAndGet();
+                    return;
+                } catch (IOException | UnsupportedOperationException e) {
+                    // cross-device or unsupported file system: fall back to a copy
+                }
+            }
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(target, attrs.lastModifiedTime());
+            clone.copied.incrementAndGet();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 一个已占用的克隆槽位,关闭后释放锁,目录保留供下次增量同步
+     */
+    @Getter
+    public static class ProfileClone implements Closeable {
+        private final File dir;
+        private final int slot;
+        private final String key;
+        private final FileChannel channel;
+        private final FileLock lock;
+        private final AtomicLong copied = new AtomicLong();
+        private final AtomicLong linked = new AtomicLong();
+        private final AtomicLong unchanged = new AtomicLong();
+        private long durationMs;
+
+        private ProfileClone(File dir, int slot, String key, FileChannel channel, FileLock lock) {
+            this.dir = dir;
+            this.slot = slot;
+            this.key = key;
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        public String getPath() {
+            return FileUtil.getAbsolutePath(dir);
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (lock.isValid()) lock.release();
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            } finally {
+                HELD_SLOTS.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.util.StrUtil;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * 页面就绪判断,配合EAGER/NONE页面加载策略使用:Jumper在driver.get返回后轮询该条件,成立即视为跳转完成
+ */
+public interface Readiness {
+    boolean isReady(WebDriver driver);
+
+    /**
+     * DOMContentLoaded已触发(document.readyState为interactive或complete)
+     */
+    static Readiness domContentLoaded() {
+        return javaScript("return document.readyState !== 'loading';");
+    }
+
+    /**
+     * 所有子资源加载完成(document.readyState为complete)
+     */
+    static Readiness complete() {
+        return javaScript("return document.readyState === 'complete';");
+    }
+
+    /**
+     * 指定元素已出现
+     */
+    static Readiness locator(By locator) {
+        String probe;
+        try {
+            probe = Locators.toJs(locator);
+        } catch (UnsupportedOperationException e) {
+            return driver -> !driver.findElements(locator).isEmpty();
+        }
+        return javaScript("return (" + probe + ")(document).length > 0;");
+    }
+
+    /**
+     * 标记当前(旧)文档,返回其URL;标记失败(例如没有可执行脚本的文档)时返回null
+     */
+    static String markLeaving(WebDriver driver) {
+        try {
+            return StrUtil.toStringOrNull(((JavascriptExecutor) driver).executeScript("window.__copilotLeaving=true;return location.href;"));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 先确认已离开{@link #markLeaving(WebDriver)}标记的旧文档(标记消失或URL变化),再判断readiness;
+     * 避免NONE策略下driver.get返回时新文档尚未建立,就绪条件在旧文档上成立
+     */
+    static Readiness afterLeaving(String previousUrl, Readiness readiness) {
+        return driver -> Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript("return window.__copilotLeaving!==true||location.href!==arguments[0];", previousUrl))
+                && readiness.isReady(driver);
+    }
+
+    /**
+     * 自定义JS脚本,返回真值即就绪
+     */
+    static Readiness javaScript(String javaScript) {
+        String script = "return !!(function(){" + StrUtil.addPrefixIfNot(javaScript, "return ") + "})();";
+        return driver -> Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(script));
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 会话自愈策略,见{@link SessionRecovery}
+ */
+@Data
+@Builder
+public class RecoveryPolicy {
+    /**
+     * 单次操作内最多重建会话的次数
+     */
+    @Builder.Default
+    private Integer maxRecoveriesPerOperation = 1;
+    /**
+     * 跳转成功后是否记录恢复点(URL、cookie、localStorage),每次跳转多两次WebDriver/DevTools调用
+     */
+    @Builder.Default
+    private Boolean checkpoint = true;
+    /**
+     * 熔断:breakerWindowMs内重建会话超过breakerThreshold次时熔断breakerOpenMs,期间操作直接失败
+     */
+    @Builder.Default
+    private Integer breakerThreshold = 3;
+    @Builder.Default
+    private Long breakerWindowMs = 5 * 60 * 1000L;
+    @Builder.Default
+    private Long breakerOpenMs = 60 * 1000L;
+}
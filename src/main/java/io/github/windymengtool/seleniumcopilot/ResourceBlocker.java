@@ -0,0 +1,105 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.URLUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按{@link BlockingRules}拦截资源:URL模式与黑名单交给浏览器内的Network.setBlockedURLs处理,
+ * 资源类型与白名单通过Fetch域拦截;同时统计被拦截的请求数以及实际传输的字节数
+ */
+@Getter
+public class ResourceBlocker implements FetchInterceptor.FetchHandler {
+    private ChromeEngine chromeEngine;
+    private BlockingRules blockingRules;
+    //
+    private final AtomicLong blockedRequests = new AtomicLong();
+    private final AtomicLong loadedRequests = new AtomicLong();
+    private final AtomicLong loadedBytes = new AtomicLong();
+
+    public ResourceBlocker(ChromeEngine chromeEngine, BlockingRules blockingRules) {
+        this.chromeEngine = chromeEngine;
+        this.blockingRules = blockingRules;
+    }
+
+    /**
+     * 在当前会话上启用拦截
+     */
+    public void apply() {
+        Cdp cdp = chromeEngine.getCdp();
+        cdp.listen("Network.loadingFailed", event -> {
+            if (event.get("blockedReason") != null || StrUtil.contains(Convert.toStr(event.get("errorText")), "BLOCKED_BY_CLIENT")) {
+                blockedRequests.incrementAndGet();
+            }
+        });
+        cdp.listen("Network.loadingFinished", event -> {
+            loadedRequests.incrementAndGet();
+            loadedBytes.addAndGet(Convert.toLong(event.get("encodedDataLength"), 0L));
+        });
+        cdp.send("Network.enable");
+        List<String> urls = new ArrayList<>(CollectionUtil.emptyIfNull(blockingRules.getUrlPatterns()));
+        CollectionUtil.emptyIfNull(blockingRules.getDenyDomains()).forEach(domain -> {
+            urls.add(StrUtil.format("*://{}/*", domain));
+            urls.add(StrUtil.format("*://*.{}/*", domain));
+        });
+        if (CollectionUtil.isNotEmpty(urls)) cdp.send("Network.setBlockedURLs", MapUtil.of("urls", urls));
+        if (CollectionUtil.isNotEmpty(blockingRules.getResourceTypes()) || CollectionUtil.isNotEmpty(blockingRules.getAllowDomains())) {
+            chromeEngine.getFetchInterceptor().addHandler(this);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> patterns() {
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        if (CollectionUtil.isNotEmpty(blockingRules.getAllowDomains())) {
+            patterns.add(pattern(null));
+        } else {
+            CollectionUtil.emptyIfNull(blockingRules.getResourceTypes()).forEach(type -> patterns.add(pattern(type)));
+        }
+        return patterns;
+    }
+
+    @Override
+    public boolean handle(Map<String, Object> event, Cdp cdp) {
+        if (event.containsKey("responseStatusCode") || event.containsKey("responseErrorReason")) return false;
+        String type = Convert.toStr(event.get("resourceType"));
+        Map<String, Object> request = (Map<String, Object>) event.get("request");
+        String url = request == null ? null : Convert.toStr(request.get("url"));
+        boolean blocked = CollectionUtil.emptyIfNull(blockingRules.getResourceTypes()).contains(type) || !isAllowed(url);
+        if (!blocked) return false;
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", event.get("requestId"));
+        params.put("errorReason", "BlockedByClient");
+        cdp.fire("Fetch.failRequest", params);
+        return true;
+    }
+
+    private boolean isAllowed(String url) {
+        List<String> allowDomains = blockingRules.getAllowDomains();
+        if (CollectionUtil.isEmpty(allowDomains) || StrUtil.isBlank(url) || !StrUtil.startWithAny(url, "http://", "https://")) return true;
+        String host;
+        try {
+            host = URLUtil.url(url).getHost();
+        } catch (Exception e) {
+            return true;
+        }
+        return allowDomains.stream().anyMatch(domain -> StrUtil.equalsIgnoreCase(host, domain) || StrUtil.endWithIgnoreCase(host, "." + domain));
+    }
+
+    private static Map<String, Object> pattern(String resourceType) {
+        Map<String, Object> pattern = new HashMap<>();
+        pattern.put("urlPattern", "*");
+        pattern.put("requestStage", "Request");
+        if (resourceType != null) pattern.put("resourceType", resourceType);
+        return pattern;
+    }
+}
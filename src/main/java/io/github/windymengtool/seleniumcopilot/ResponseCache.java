@@ -0,0 +1,280 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import lombok.Data;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本机共享的磁盘响应缓存:响应体按SHA-256内容寻址存放在objects目录(相同内容只存一份),
+ * 每个URL的元数据存放在entries目录,进程重启后可继续使用;读取通过内存映射,超过maxBytes时按LRU淘汰.
+ * 由{@link ResponseCacheHandler}在Fetch域中使用,同一JVM中dir相同的引擎共享同一实例;
+ * 多个进程使用同一目录时,所有修改在目录下index.lock的文件锁内进行,锁文件同时记录修改代次,
+ * 发现其他进程修改过时先从entries目录重新加载索引,因此淘汰时的引用计数覆盖所有进程写入的条目
+ */
+@Getter
+public class ResponseCache {
+    private static final Map<String, ResponseCache> OPENED = new ConcurrentHashMap<>();
+
+    private File dir;
+    private File objectsDir;
+    private File entriesDir;
+    private ResponseCacheRules rules;
+    /**
+     * key -> 元数据,按访问顺序排列
+     */
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> blobRefs = new HashMap<>();
+    private long totalBytes;
+    /**
+     * 进程间的修改锁,文件内容为修改代次
+     */
+    private final FileChannel lockChannel;
+    /**
+     * 本实例索引对应的修改代次
+     */
+    private long generation = -1;
+    /**
+     * 写盘在单个后台线程进行,不阻塞Fetch事件
+     */
+    private final ExecutorService writer;
+    //
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private ResponseCache(File dir, ResponseCacheRules rules) {
+        this.dir = dir;
+        this.rules = rules;
+        this.objectsDir = FileUtil.mkdir(new File(dir, "objects"));
+        this.entriesDir = FileUtil.mkdir(new File(dir, "entries"));
+        try {
+            this.lockChannel = FileChannel.open(new File(dir, "index.lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1024),
+                ThreadUtil.newNamedThreadFactory("copilot-response-cache-", true), new ThreadPoolExecutor.AbortPolicy());
+        mutate(this::evict);
+    }
+
+    /**
+     * 按目录获取共享实例
+     */
+    public static ResponseCache open(ResponseCacheRules rules) {
+        File dir = FileUtil.file(StrUtil.blankToDefault(rules.getDir(), FileUtil.getTmpDirPath() + File.separator + "selenium-copilot-response-cache"));
+        return OPENED.computeIfAbsent(FileUtil.getCanonicalPath(dir), path -> new ResponseCache(FileUtil.file(path), rules));
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0D : (double) hits.get() / total;
+    }
+
+    /**
+     * 查找未过期的缓存并计入命中率;索引中没有时检查其他进程是否已写入
+     */
+    public synchronized Entry lookup(String key) {
+        Entry entry = index.get(key);
+        if (entry == null) entry = loadEntry(key);
+        if (entry != null && entry.getExpiresAt() < System.currentTimeMillis()) {
+            mutate(() -> remove(key));
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * 以内存映射的方式读取响应体,文件丢失时移除该条目并返回null
+     */
+    public ByteBuffer read(Entry entry) {
+        File blob = new File(objectsDir, entry.getSha256());
+        try (FileChannel channel = FileChannel.open(blob.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            bytesSaved.addAndGet(entry.getSize());
+            return buffer;
+        } catch (IOException e) {
+            mutate(() -> remove(entry.getKey()));
+            return null;
+        }
+    }
+
+    /**
+     * 异步写入;单个响应超过maxBytes的1/4时不缓存
+     *
+     * @return 写入队列已满、本次写入被丢弃时为false
+     */
+    public boolean store(String key, int status, List<Map<String, Object>> headers, byte[] body, long ttlMs) {
+        if (body.length > rules.getMaxBytes() / 4) return true;
+        try {
+            writer.execute(() -> {
+                try {
+                    Entry entry = new Entry();
+                    entry.setKey(key);
+                    entry.setStatus(status);
+                    entry.setHeaders(headers);
+                    entry.setSha256(DigestUtil.sha256Hex(body));
+                    entry.setSize(body.length);
+                    entry.setExpiresAt(System.currentTimeMillis() + ttlMs);
+                    File blob = new File(objectsDir, entry.getSha256());
+                    mutate(() -> {
+                        remove(key);
+                        try {
+                            if (!blob.exists()) writeAtomically(blob, body);
+                            writeAtomically(entryFile(key), JSONUtil.toJsonStr(entry).getBytes(StandardCharsets.UTF_8));
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                        add(entry);
+                        evict();
+                    });
+                    stores.incrementAndGet();
+                } catch (Exception e) {
+                    Assistant.errPrintFlush(StrUtil.format("[RESPONSE-CACHE]-store failed: {}", e.getMessage()));
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * 在进程间的文件锁内修改索引与文件:锁文件记录的代次与本实例不一致(其他进程修改过)时先重新加载索引,修改后递增代次
+     */
+    private synchronized void mutate(Runnable action) {
+        try (FileLock lock = lockChannel.lock()) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            long current = lockChannel.read(buffer, 0) == Long.BYTES ? ((ByteBuffer) buffer.flip()).getLong() : 0L;
+            if (current != generation) reload();
+            action.run();
+            generation = current + 1;
+            buffer.clear();
+            buffer.putLong(generation).flip();
+            lockChannel.write(buffer, 0);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void reload() {
+        index.clear();
+        blobRefs.clear();
+        totalBytes = 0;
+        File[] files = entriesDir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            try {
+                Entry entry = JSONUtil.toBean(FileUtil.readUtf8String(file), Entry.class);
+                if (entry.getExpiresAt() < now || !new File(objectsDir, entry.getSha256()).exists()) {
+                    FileUtil.del(file);
+                    continue;
+                }
+                add(entry);
+            } catch (Exception e) {
+                FileUtil.del(file);
+            }
+        }
+    }
+
+    /**
+     * 读取其他进程写入的条目;只加入本实例的索引,不修改文件
+     */
+    private Entry loadEntry(String key) {
+        File file = entryFile(key);
+        if (!file.exists()) return null;
+        try {
+            Entry entry = JSONUtil.toBean(FileUtil.readUtf8String(file), Entry.class);
+            if (!StrUtil.equals(entry.getKey(), key) || !new File(objectsDir, entry.getSha256()).exists()) return null;
+            add(entry);
+            return entry;
+        } catch (Exception e) {
+            return null; // being replaced by another process
+        }
+    }
+
+    private void add(Entry entry) {
+        index.put(entry.getKey(), entry);
+        int refs = blobRefs.merge(entry.getSha256(), 1, Integer::sum);
+        if (refs == 1) totalBytes += entry.getSize();
+    }
+
+    private void remove(String key) {
+        Entry entry = index.remove(key);
+        if (entry == null) return;
+        FileUtil.del(entryFile(key));
+        Integer refs = blobRefs.merge(entry.getSha256(), -1, Integer::sum);
+        if (refs != null && refs <= 0) {
+            blobRefs.remove(entry.getSha256());
+            totalBytes -= entry.getSize();
+            FileUtil.del(new File(objectsDir, entry.getSha256()));
+        }
+    }
+
+    private void evict() {
+        while (totalBytes > rules.getMaxBytes() && !index.isEmpty()) {
+            remove(index.keySet().iterator().next());
+            evictions.incrementAndGet();
+        }
+    }
+
+    private File entryFile(String key) {
+        return new File(entriesDir, DigestUtil.md5Hex(key) + ".json");
+    }
+
+    private static void writeAtomically(File target, byte[] bytes) throws IOException {
+        File tmp = new File(target.getParentFile(), target.getName() + "." + Assistant.nanoIdUpperCase() + ".tmp");
+        Files.write(tmp.toPath(), bytes);
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Data
+    public static class Entry {
+        private String key;
+        private Integer status;
+        /**
+         * Fetch.fulfillRequest的responseHeaders,已去除Content-Encoding/Content-Length
+         */
+        private List<Map<String, Object>> headers;
+        private String sha256;
+        private long size;
+        private long expiresAt;
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.ReUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 通过Fetch域使用{@link ResponseCache}:请求阶段命中则直接以Fetch.fulfillRequest答复,
+ * 响应阶段对可缓存的GET 200响应读取响应体写入缓存;缓存键为URL,不考虑Vary与Cookie,只适用于静态资源
+ */
+@Getter
+public class ResponseCacheHandler implements FetchInterceptor.FetchHandler {
+    private ChromeEngine chromeEngine;
+    private ResponseCache responseCache;
+
+    public ResponseCacheHandler(ChromeEngine chromeEngine, ResponseCache responseCache) {
+        this.chromeEngine = chromeEngine;
+        this.responseCache = responseCache;
+    }
+
+    public void apply() {
+        chromeEngine.getFetchInterceptor().addHandler(this);
+    }
+
+    @Override
+    public List<Map<String, Object>> patterns() {
+        List<Map<String, Object>> patterns = new ArrayList<>();
+        for (String type : responseCache.getRules().getResourceTypes()) {
+            patterns.add(pattern(type, "Request"));
+            patterns.add(pattern(type, "Response"));
+        }
+        return patterns;
+    }
+
+    @Override
+    public boolean handle(Map<String, Object> event, Cdp cdp) {
+        if (!responseCache.getRules().getResourceTypes().contains(Convert.toStr(event.get("resourceType")))) return false;
+        Map<String, Object> request = (Map<String, Object>) event.get("request");
+        if (request == null || !StrUtil.equals(Convert.toStr(request.get("method")), "GET")) return false;
+        String url = Convert.toStr(request.get("url"));
+        if (!StrUtil.startWithAny(url, "http://", "https://")) return false;
+        if (event.containsKey("responseErrorReason")) return false;
+        if (!event.containsKey("responseStatusCode")) return serve(event, url, cdp);
+        return store(event, url, cdp);
+    }
+
+    private boolean serve(Map<String, Object> event, String url, Cdp cdp) {
+        ResponseCache.Entry entry = responseCache.lookup(url);
+        if (entry == null) return false;
+        ByteBuffer body = responseCache.read(entry);
+        if (body == null) return false;
+        Map<String, Object> params = new HashMap<>();
+        params.put("requestId", event.get("requestId"));
+        params.put("responseCode", entry.getStatus());
+        params.put("responseHeaders", entry.getHeaders());
+        params.put("body", StandardCharsets.ISO_8859_1.decode(Base64.getEncoder().encode(body)).toString());
+        cdp.fire("Fetch.fulfillRequest", params);
+        return true;
+    }
+
+    private boolean store(Map<String, Object> event, String url, Cdp cdp) {
+        if (Convert.toInt(event.get("responseStatusCode"), 0) != 200) return false;
+        List<Map<String, Object>> headers = (List<Map<String, Object>>) event.get("responseHeaders");
+        String cacheControl = header(headers, "Cache-Control");
+        if (StrUtil.containsAnyIgnoreCase(cacheControl, "no-store", "private")) return false;
+        Map<String, Object> result = cdp.send("Fetch.getResponseBody", MapUtil.of("requestId", event.get("requestId")));
+        cdp.fire("Fetch.continueRequest", MapUtil.of("requestId", event.get("requestId")));
+        String body = Convert.toStr(result.get("body"), "");
+        byte[] bytes = Boolean.TRUE.equals(result.get("base64Encoded")) ? Base64.getDecoder().decode(body) : body.getBytes(StandardCharsets.UTF_8);
+        // getResponseBody返回的是解码后的内容,需要去掉与之不符的头
+        List<Map<String, Object>> kept = headers == null ? new ArrayList<>() : headers.stream()
+                .filter(f -> !StrUtil.equalsAnyIgnoreCase(Convert.toStr(f.get("name")), "Content-Encoding", "Content-Length", "Transfer-Encoding"))
+                .collect(Collectors.toList());
+        String maxAge = ReUtil.get("max-age=(\\d+)", StrUtil.nullToEmpty(cacheControl), 1);
+        long ttlMs = maxAge == null ? responseCache.getRules().getDefaultTtlMs() : Long.parseLong(maxAge) * 1000L;
+        if (ttlMs > 0 && !responseCache.store(url, 200, kept, bytes, ttlMs)) {
+            chromeEngine.getMetricsSink().increment("cache.response.dropped", null);
+        }
+        return true;
+    }
+
+    private static String header(List<Map<String, Object>> headers, String name) {
+        if (headers == null) return null;
+        return headers.stream().filter(f -> StrUtil.equalsIgnoreCase(Convert.toStr(f.get("name")), name))
+                .map(f -> Convert.toStr(f.get("value"))).findFirst().orElse(null);
+    }
+
+    private static Map<String, Object> pattern(String resourceType, String requestStage) {
+        Map<String, Object> pattern = new HashMap<>();
+        pattern.put("urlPattern", "*");
+        pattern.put("resourceType", resourceType);
+        pattern.put("requestStage", requestStage);
+        return pattern;
+    }
+}
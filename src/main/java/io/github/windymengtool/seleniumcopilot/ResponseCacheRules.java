@@ -0,0 +1,39 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 共享响应缓存的配置,dir相同的引擎共享同一个{@link ResponseCache}
+ */
+@Data
+@Builder
+public class ResponseCacheRules {
+    /**
+     * 缓存目录,为空时使用系统临时目录下的selenium-copilot-response-cache
+     */
+    private String dir;
+    /**
+     * 磁盘占用上限(字节),超过后按最近最少使用淘汰
+     */
+    @Builder.Default
+    private Long maxBytes = 512L * 1024 * 1024;
+    /**
+     * 响应没有Cache-Control: max-age时的有效期
+     */
+    @Builder.Default
+    private Long defaultTtlMs = 24L * 60 * 60 * 1000;
+    /**
+     * 缓存的资源类型,取值为DevTools的Network.ResourceType
+     */
+    @Builder.Default
+    private Set<String> resourceTypes = new HashSet<String>() {{
+        add("Script");
+        add("Stylesheet");
+        add("Font");
+        add("Image");
+    }};
+}
@@ -0,0 +1,196 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.date.TimeInterval;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.lang.Assert;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.io.File;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通过DevTools的Page.captureScreenshot截图:可视区域、整页或元素区域,支持png/jpeg/webp、质量与缩放;
+ * 调用线程只负责截图本身,解码与写盘交给{@link ScreenshotPipeline},driver可立即用于下一次跳转
+ * <pre>
+ * chromeEngine.viewer().screenshot().fullPage().format(Screenshot.FormatEnum.JPEG).quality(70).saveAsync(file);
+ * </pre>
+ */
+@Getter
+public class Screenshot {
+    private static final String RECT_SCRIPT = "var r=arguments[0].getBoundingClientRect();return [r.left+window.scrollX,r.top+window.scrollY,r.width,r.height];";
+
+    private ChromeEngine chromeEngine;
+    private ModeEnum mode = ModeEnum.VIEWPORT;
+    private WebElement element;
+    private FormatEnum format = FormatEnum.PNG;
+    /**
+     * 0-100,仅jpeg/webp有效
+     */
+    private Integer quality;
+    /**
+     * 缩放比例,例如0.5为一半尺寸
+     */
+    private Double scale;
+    private ScreenshotPipeline pipeline = ScreenshotPipeline.shared();
+    /**
+     * 最近一次截图占用driver的耗时
+     */
+    private long captureMs;
+
+    public Screenshot(ChromeEngine chromeEngine) {
+        this.chromeEngine = chromeEngine;
+    }
+
+    public Screenshot viewport() {
+        this.mode = ModeEnum.VIEWPORT;
+        return this;
+    }
+
+    public Screenshot fullPage() {
+        this.mode = ModeEnum.FULL_PAGE;
+        return this;
+    }
+
+    public Screenshot element(WebElement element) {
+        this.mode = ModeEnum.ELEMENT;
+        this.element = element;
+        return this;
+    }
+
+    public Screenshot element(By locator) {
+        return element(chromeEngine.getDriver().findElement(locator));
+    }
+
+    public Screenshot format(FormatEnum format) {
+        this.format = format;
+        return this;
+    }
+
+    public Screenshot quality(Integer quality) {
+        this.quality = quality;
+        return this;
+    }
+
+    public Screenshot scale(Double scale) {
+        this.scale = scale;
+        return this;
+    }
+
+    public Screenshot pipeline(ScreenshotPipeline pipeline) {
+        this.pipeline = pipeline;
+        return this;
+    }
+
+    /**
+     * 截图并返回base64数据,在调用线程执行
+     */
+    public String capture() {
+        TimeInterval timer = DateUtil.timer();
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", format.getValue());
+        if (quality != null && format != FormatEnum.PNG) params.put("quality", Math.max(0, Math.min(100, quality)));
+        Map<String, Object> clip = clip();
+        if (clip != null) {
+            params.put("clip", clip);
+            params.put("captureBeyondViewport", mode != ModeEnum.VIEWPORT);
+        }
+        String data = Convert.toStr(chromeEngine.getCdp().send("Page.captureScreenshot", params).get("data"));
+        Assert.notNull(data, "screenshot returned no data");
+        this.captureMs = timer.intervalMs();
+        chromeEngine.getMetricsSink().recordLatency("screenshot.capture", null, captureMs);
+        return data;
+    }
+
+    /**
+     * 截图后立即返回,解码与写盘在后台进行;后台内存预算用尽时阻塞
+     */
+    public CompletableFuture<File> saveAsync(File target) {
+        String data = capture();
+        TimeInterval timer = DateUtil.timer();
+        return pipeline.submit(data, target).whenComplete((file, e) -> chromeEngine.getMetricsSink().recordLatency("screenshot.write", null, timer.intervalMs()));
+    }
+
+    public CompletableFuture<File> saveAsync(String path) {
+        return saveAsync(FileUtil.file(path));
+    }
+
+    public File save(File target) {
+        return saveAsync(target).join();
+    }
+
+    public byte[] bytes() {
+        return Base64.getDecoder().decode(capture());
+    }
+
+    /**
+     * 可视区域只在需要缩放时设置clip;整页使用内容尺寸;元素使用其在文档中的位置
+     */
+    private Map<String, Object> clip() {
+        double x = 0, y = 0, width, height;
+        if (mode == ModeEnum.ELEMENT) {
+            Assert.notNull(element, "not specified element");
+            List<Object> rect = (List<Object>) ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(RECT_SCRIPT, element);
+            x = Convert.toDouble(rect.get(0));
+            y = Convert.toDouble(rect.get(1));
+            width = Convert.toDouble(rect.get(2));
+            height = Convert.toDouble(rect.get(3));
+        } else if (mode == ModeEnum.FULL_PAGE) {
+            Map<String, Object> metrics = chromeEngine.getCdp().send("Page.getLayoutMetrics");
+            Map<String, Object> size = (Map<String, Object>) metrics.getOrDefault("cssContentSize", metrics.get("contentSize"));
+            width = Convert.toDouble(size.get("width"));
+            height = Convert.toDouble(size.get("height"));
+        } else {
+            if (scale == null) return null;
+            Map<String, Object> metrics = chromeEngine.getCdp().send("Page.getLayoutMetrics");
+            Map<String, Object> viewport = (Map<String, Object>) metrics.getOrDefault("cssVisualViewport", metrics.get("visualViewport"));
+            x = Convert.toDouble(viewport.get("pageX"));
+            y = Convert.toDouble(viewport.get("pageY"));
+            width = Convert.toDouble(viewport.get("clientWidth"));
+            height = Convert.toDouble(viewport.get("clientHeight"));
+        }
+        Map<String, Object> clip = new HashMap<>();
+        clip.put("x", x);
+        clip.put("y", y);
+        clip.put("width", Math.max(1D, width));
+        clip.put("height", Math.max(1D, height));
+        clip.put("scale", scale == null ? 1D : scale);
+        return clip;
+    }
+
+    @AllArgsConstructor
+    public enum ModeEnum {
+        VIEWPORT(1, "可视区域", "viewport"),
+        FULL_PAGE(2, "整页", "full page"),
+        ELEMENT(3, "元素区域", "element"),
+        ;
+        private Integer code;
+        private String zhLabel;
+        private String enLabel;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public enum FormatEnum {
+        PNG(1, "png", "png"),
+        JPEG(2, "jpeg", "jpeg"),
+        WEBP(3, "webp", "webp"),
+        ;
+        private Integer code;
+        private String zhLabel;
+        private String enLabel;
+
+        public String getValue() {
+            return enLabel;
+        }
+    }
+}
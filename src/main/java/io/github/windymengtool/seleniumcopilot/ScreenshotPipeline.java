@@ -0,0 +1,87 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.thread.ThreadUtil;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 截图的后台解码与写盘:在有界线程池上把base64解码并通过FileChannel写入文件;
+ * 排队中的截图按数据大小占用内存预算,预算用尽时提交方阻塞(背压),避免大量整页截图堆积在内存中
+ */
+@Getter
+public class ScreenshotPipeline {
+    private static volatile ScreenshotPipeline shared;
+
+    private final ExecutorService executor;
+    private final Semaphore memoryBudget;
+    private final int memoryBudgetBytes;
+
+    public ScreenshotPipeline(int threads, int memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.memoryBudget = new Semaphore(memoryBudgetBytes);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                ThreadUtil.newNamedThreadFactory("copilot-screenshot-", true));
+    }
+
+    /**
+     * 全局共享:2个线程,256MB内存预算
+     */
+    public static ScreenshotPipeline shared() {
+        if (shared == null) {
+            synchronized (ScreenshotPipeline.class) {
+                if (shared == null) shared = new ScreenshotPipeline(2, 256 * 1024 * 1024);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * 提交写盘任务;内存预算不足时阻塞直到有任务完成
+     */
+    public CompletableFuture<File> submit(String base64, File target) {
+        // base64字符串本身加上解码后的数据
+        int permits = (int) Math.min(memoryBudgetBytes, (long) base64.length() + base64.length() / 4 * 3);
+        try {
+            memoryBudget.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return write(base64, target);
+                } finally {
+                    memoryBudget.release(permits);
+                }
+            }, executor);
+        } catch (RuntimeException e) {
+            memoryBudget.release(permits);
+            throw e;
+        }
+    }
+
+    private static File write(String base64, File target) {
+        FileUtil.mkParentDirs(target);
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(base64));
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            return target;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.github.windymengtool.seleniumcopilot;
+
+/**
+ * 浏览器会话已不可用(浏览器崩溃、无法连接、会话被删除或渲染进程超时)
+ */
+public class SessionLostException extends RuntimeException {
+    public SessionLostException(Throwable cause) {
+        super(cause);
+    }
+
+    public SessionLostException(String message) {
+        super(message);
+    }
+}
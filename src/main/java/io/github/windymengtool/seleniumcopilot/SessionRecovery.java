@@ -0,0 +1,160 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.date.TimeInterval;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import lombok.Getter;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * 会话自愈:识别已失效的会话,重建driver并恢复最近一次跳转后的URL、cookie与localStorage,然后在操作的剩余时间内重试;
+ * 短时间内频繁重建时熔断,避免故障节点陷入重启循环.在ChromeProperties中配置recoveryPolicy后启用
+ */
+@Getter
+public class SessionRecovery {
+    /**
+     * 不包含"timed out receiving message from renderer":chromedriver在普通的pageLoadTimeout/脚本超时时也返回该信息
+     */
+    private static final List<String> SESSION_LOST_MESSAGES = Arrays.asList(
+            "invalid session id", "session deleted", "chrome not reachable", "disconnected: not connected to devtools",
+            "tab crashed", "page crash", "unable to receive message from renderer");
+    private static final String CHECKPOINT_SCRIPT = "var s={};try{for(var i=0;i<localStorage.length;i++){var k=localStorage.key(i);s[k]=localStorage.getItem(k);}}catch(e){}"
+            + "return [location.href, location.origin, JSON.stringify(s)];";
+    private static final List<String> COOKIE_PARAMS = Arrays.asList("name", "value", "domain", "path", "secure", "httpOnly", "sameSite", "expires");
+
+    private ChromeEngine chromeEngine;
+    private RecoveryPolicy recoveryPolicy;
+    //
+    private volatile String checkpointUrl;
+    private volatile String checkpointOrigin;
+    private volatile String checkpointStorage;
+    private volatile List<Map<String, Object>> checkpointCookies;
+    private final Deque<Long> recentRecoveries = new ArrayDeque<>();
+    private volatile long openUntil;
+    private volatile int recoveries;
+
+    public SessionRecovery(ChromeEngine chromeEngine, RecoveryPolicy recoveryPolicy) {
+        this.chromeEngine = chromeEngine;
+        this.recoveryPolicy = recoveryPolicy;
+    }
+
+    /**
+     * 异常链中是否包含会话失效的迹象
+     */
+    public static boolean isSessionLost(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SessionLostException || cause instanceof NoSuchSessionException || cause instanceof UnreachableBrowserException) return true;
+            String message = StrUtil.nullToEmpty(cause.getMessage()).toLowerCase();
+            if (SESSION_LOST_MESSAGES.stream().anyMatch(message::contains)) return true;
+            if (cause.getCause() == cause) break;
+        }
+        return false;
+    }
+
+    /**
+     * 执行操作,会话失效时重建并以剩余时间重试;operation的参数为本次可用的毫秒数
+     */
+    public <T> T run(long budgetMs, LongFunction<T> operation) {
+        TimeInterval timer = DateUtil.timer();
+        int attempt = 0;
+        while (true) {
+            try {
+                return operation.apply(Math.max(0L, budgetMs - timer.intervalMs()));
+            } catch (RuntimeException e) {
+                if (!isSessionLost(e) || attempt >= recoveryPolicy.getMaxRecoveriesPerOperation() || timer.intervalMs() >= budgetMs) throw e;
+                attempt++;
+                recover();
+            }
+        }
+    }
+
+    /**
+     * 记录恢复点,失败时忽略
+     */
+    public void checkpoint() {
+        if (!Boolean.TRUE.equals(recoveryPolicy.getCheckpoint())) return;
+        try {
+            List<Object> raw = (List<Object>) ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(CHECKPOINT_SCRIPT);
+            Object cookies = chromeEngine.getCdp().send("Network.getAllCookies").get("cookies");
+            this.checkpointUrl = Convert.toStr(raw.get(0));
+            this.checkpointOrigin = Convert.toStr(raw.get(1));
+            this.checkpointStorage = Convert.toStr(raw.get(2));
+            this.checkpointCookies = cookies instanceof List ? (List<Map<String, Object>>) cookies : null;
+        } catch (Exception e) {
+            CopilotLogger.debug(() -> StrUtil.format("[RECOVERY]-checkpoint skipped: {}", e.getMessage()));
+        }
+    }
+
+    /**
+     * 重建driver并恢复到最近的恢复点;熔断期间直接抛出SessionLostException
+     */
+    public synchronized void recover() {
+        long now = System.currentTimeMillis();
+        if (now < openUntil) {
+            throw new SessionLostException(StrUtil.format("[RECOVERY]-circuit open for another {}ms", openUntil - now));
+        }
+        while (!recentRecoveries.isEmpty() && now - recentRecoveries.peekFirst() > recoveryPolicy.getBreakerWindowMs()) {
+            recentRecoveries.pollFirst();
+        }
+        recentRecoveries.addLast(now);
+        if (recentRecoveries.size() > recoveryPolicy.getBreakerThreshold()) {
+            openUntil = now + recoveryPolicy.getBreakerOpenMs();
+            recentRecoveries.clear();
+            chromeEngine.getMetricsSink().increment("engine.recovery.breakerOpened", null);
+            throw new SessionLostException(StrUtil.format("[RECOVERY]-too many recoveries within {}ms, circuit opened", recoveryPolicy.getBreakerWindowMs()));
+        }
+        TimeInterval timer = DateUtil.timer();
+        try {
+            chromeEngine.restart();
+            restore();
+            recoveries++;
+            chromeEngine.getMetricsSink().recordLatency("engine.recovery", null, timer.intervalMs());
+            CopilotLogger.warn(() -> StrUtil.format("[RECOVERY]-session recovered @ {}ms, url[{}]", timer.intervalMs(), checkpointUrl));
+        } catch (Exception e) {
+            chromeEngine.getMetricsSink().increment("engine.recovery.failures", null);
+            throw new SessionLostException(e);
+        }
+    }
+
+    private void restore() {
+        if (checkpointUrl == null) return;
+        Cdp cdp = chromeEngine.getCdp();
+        if (checkpointCookies != null && !checkpointCookies.isEmpty()) {
+            List<Map<String, Object>> cookies = new ArrayList<>();
+            for (Map<String, Object> cookie : checkpointCookies) {
+                Map<String, Object> param = new HashMap<>();
+                COOKIE_PARAMS.forEach(key -> {
+                    if (cookie.get(key) != null) param.put(key, cookie.get(key));
+                });
+                if (Boolean.TRUE.equals(cookie.get("session"))) param.remove("expires");
+                cookies.add(param);
+            }
+            cdp.send("Network.setCookies", MapUtil.of("cookies", cookies));
+        }
+        // localStorage在页面脚本执行前写入,只需一次导航
+        String identifier = null;
+        if (StrUtil.isNotBlank(checkpointStorage) && !"{}".equals(checkpointStorage)) {
+            String source = "if(location.origin===" + JSONUtil.quote(checkpointOrigin) + "){try{var d=" + checkpointStorage + ";for(var k in d){localStorage.setItem(k,d[k]);}}catch(e){}}";
+            identifier = Convert.toStr(cdp.send("Page.addScriptToEvaluateOnNewDocument", MapUtil.of("source", source)).get("identifier"));
+        }
+        try {
+            chromeEngine.getDriver().get(checkpointUrl);
+        } finally {
+            if (identifier != null) cdp.send("Page.removeScriptToEvaluateOnNewDocument", MapUtil.of("identifier", identifier));
+        }
+    }
+}
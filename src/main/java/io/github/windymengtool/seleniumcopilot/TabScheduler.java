@@ -0,0 +1,242 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 单个ChromeEngine上的多标签页调度:打开N个标签页,任务从有界队列分发到空闲标签页;
+ * 所有WebDriver调用在引擎的driverLock下执行并按需switchTo,标签页在等待加载时释放锁,从而让多个页面的加载重叠.
+ * 引擎{@link ChromeEngine#restart()}后标签页句柄失效,任务中对标签页的调用抛出{@link SessionLostException},需要close后重新创建调度器.
+ * 建议配合PageLoadStrategy.EAGER/NONE与{@link Tab#navigate(String)}+{@link Tab#awaitReady(Readiness, long)}使用
+ * <pre>
+ * TabScheduler scheduler = new TabScheduler(chromeEngine).tabs(6).start();
+ * CompletableFuture&lt;String&gt; title = scheduler.submit(tab -&gt; {
+ *     tab.navigate(url);
+ *     tab.awaitReady(Readiness.domContentLoaded(), 10000L);
+ *     return tab.call(WebDriver::getTitle);
+ * });
+ * </pre>
+ */
+@Getter
+public class TabScheduler implements Closeable {
+    private static final String LEAVING_SCRIPT = "return window.__copilotLeaving===true;";
+
+    private ChromeEngine chromeEngine;
+    private String logPrefix = getDefaultLogPrefix();
+    private Integer tabs = 4;
+    /**
+     * 等待执行的任务上限,超过时submit阻塞
+     */
+    private Integer queueCapacity = 100;
+    //
+    private final List<Tab> tabList = new ArrayList<>();
+    private BlockingQueue<Tab> freeTabs;
+    private Semaphore permits;
+    private ExecutorService workers;
+    /**
+     * driver当前所在的窗口句柄
+     */
+    private volatile String activeHandle;
+    private volatile boolean started = false;
+    private int sessionGeneration;
+
+    public TabScheduler(ChromeEngine chromeEngine) {
+        this.chromeEngine = chromeEngine;
+    }
+
+    public TabScheduler logPrefix(String logPrefix) {
+        this.logPrefix = logPrefix;
+        return this;
+    }
+
+    public TabScheduler tabs(Integer tabs) {
+        this.tabs = tabs;
+        return this;
+    }
+
+    public TabScheduler queueCapacity(Integer queueCapacity) {
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * 以当前窗口为第一个标签页,再打开tabs-1个新标签页
+     */
+    public synchronized TabScheduler start() {
+        if (started) return this;
+        tabs = tabs == null || tabs < 1 ? 1 : tabs;
+        queueCapacity = queueCapacity == null || queueCapacity < 0 ? 0 : queueCapacity;
+        ReentrantLock lock = chromeEngine.getDriverLock();
+        lock.lock();
+        try {
+            WebDriver driver = chromeEngine.getDriver();
+            sessionGeneration = chromeEngine.getSessionGeneration();
+            activeHandle = driver.getWindowHandle();
+            tabList.add(new Tab(0, activeHandle));
+            for (int i = 1; i < tabs; i++) {
+                driver.switchTo().newWindow(WindowType.TAB);
+                activeHandle = driver.getWindowHandle();
+                tabList.add(new Tab(i, activeHandle));
+            }
+            chromeEngine.getElementCache().invalidateAll();
+            chromeEngine.getElementCache().scope(activeHandle);
+        } finally {
+            lock.unlock();
+        }
+        this.freeTabs = new ArrayBlockingQueue<>(tabs, false, tabList);
+        this.permits = new Semaphore(tabs + queueCapacity);
+        this.workers = Executors.newFixedThreadPool(tabs, ThreadUtil.newNamedThreadFactory(logPrefix + "-tab-", true));
+        this.started = true;
+        CopilotLogger.info(() -> StrUtil.format("[{}]-{} tabs opened", logPrefix, tabs));
+        return this;
+    }
+
+    /**
+     * 提交任务,在某个空闲标签页上执行;队列已满时阻塞
+     */
+    public <T> CompletableFuture<T> submit(Function<Tab, T> task) {
+        Assert.isTrue(started, "[{}]-scheduler is not started", logPrefix);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            workers.execute(() -> {
+                Tab tab = null;
+                try {
+                    tab = freeTabs.take();
+                    future.complete(task.apply(tab));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    if (tab != null) freeTabs.offer(tab);
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * 停止调度并关闭额外打开的标签页,保留第一个标签页
+     */
+    @Override
+    public synchronized void close() {
+        if (!started) return;
+        started = false;
+        workers.shutdownNow();
+        ReentrantLock lock = chromeEngine.getDriverLock();
+        lock.lock();
+        try {
+            WebDriver driver = chromeEngine.getDriver();
+            for (Tab tab : tabList.subList(1, tabList.size())) {
+                driver.switchTo().window(tab.getHandle());
+                driver.close();
+                chromeEngine.getElementCache().drop(tab.getHandle());
+            }
+            driver.switchTo().window(tabList.get(0).getHandle());
+            activeHandle = tabList.get(0).getHandle();
+            chromeEngine.getElementCache().scope(activeHandle);
+        } catch (Exception e) {
+            Assistant.errPrintFlush(StrUtil.format("[{}]-close tabs failed: {}", logPrefix, e.getMessage()));
+        } finally {
+            lock.unlock();
+            tabList.clear();
+        }
+    }
+
+    private String getDefaultLogPrefix() {
+        return StrUtil.format("{}-{}", getClass().getSimpleName().toUpperCase(), Assistant.nanoIdUpperCase());
+    }
+
+    /**
+     * 一个标签页;所有方法都会在driverLock下切换到该标签页后再调用driver
+     */
+    @Getter
+    public class Tab {
+        private final int index;
+        private final String handle;
+
+        private Tab(int index, String handle) {
+            this.index = index;
+            this.handle = handle;
+        }
+
+        /**
+         * 独占driver并切换到本标签页后执行
+         */
+        public <T> T call(Function<WebDriver, T> function) {
+            ReentrantLock lock = chromeEngine.getDriverLock();
+            lock.lock();
+            try {
+                chromeEngine.checkSession(sessionGeneration, StrUtil.format("[{}]-tab {}", logPrefix, index));
+                WebDriver driver = chromeEngine.getDriver();
+                if (!StrUtil.equals(activeHandle, handle)) {
+                    driver.switchTo().window(handle);
+                    activeHandle = handle;
+                    chromeEngine.getElementCache().scope(handle);
+                }
+                return function.apply(driver);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 独占整个引擎执行(例如engine.jumper().url(url).jump()),期间其他标签页无法使用driver
+         */
+        public <T> T withEngine(Function<ChromeEngine, T> function) {
+            return call(driver -> function.apply(chromeEngine));
+        }
+
+        /**
+         * 非阻塞导航:在页面内延迟修改location后立即返回,不等待页面加载
+         */
+        public void navigate(String url) {
+            call(driver -> {
+                chromeEngine.getElementCache().invalidate();
+                return ((JavascriptExecutor) driver).executeScript("var u=arguments[0];window.__copilotLeaving=true;window.setTimeout(function(){window.location.href=u;},0);", url);
+            });
+        }
+
+        /**
+         * 轮询就绪条件(会跳过navigate之前的旧文档),两次探测之间释放driver,让其他标签页继续工作;
+         * 会话已失效(或引擎已重建)时抛出SessionLostException
+         */
+        public boolean awaitReady(Readiness readiness, long maxMs) {
+            return new Poller(chromeEngine.getPollingStrategy(), maxMs).poll(() -> {
+                try {
+                    return call(driver -> !Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(LEAVING_SCRIPT)) && readiness.isReady(driver));
+                } catch (SessionLostException e) {
+                    throw e;
+                } catch (Exception e) {
+                    if (SessionRecovery.isSessionLost(e)) throw new SessionLostException(e);
+                    return false; // the document may be replaced while navigating
+                }
+            });
+        }
+    }
+}
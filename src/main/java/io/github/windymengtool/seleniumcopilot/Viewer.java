@@ -1,10 +1,14 @@
 package io.github.windymengtool.seleniumcopilot;
 
 import lombok.Getter;
+import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 @Getter
 public class Viewer {
     private ChromeEngine chromeEngine;
@@ -19,4 +23,27 @@ public class Viewer {
             ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true);", webElement);
         }
     }
+
+    /**
+     * 截图,见{@link Screenshot}
+     */
+    public Screenshot screenshot() {
+        return new Screenshot(chromeEngine);
+    }
+
+    /**
+     * 无限滚动采集,可配置上限与去重方式,见{@link Harvester}
+     */
+    public Harvester harvester() {
+        return new Harvester(chromeEngine);
+    }
+
+    /**
+     * 以默认配置采集无限滚动列表,新出现的行分批交给consumer
+     *
+     * @return 采集的总行数
+     */
+    public int harvest(By rowLocator, Consumer<List<WebElement>> consumer) {
+        return harvester().harvest(rowLocator, consumer);
+    }
 }
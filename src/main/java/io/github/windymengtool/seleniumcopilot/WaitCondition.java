@@ -0,0 +1,56 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import org.openqa.selenium.By;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * {@link Waiter#untilAny}/{@link Waiter#untilAll}/{@link Waiter#untilSequence}使用的具名条件;
+ * 定位器与JS条件在每轮中合并为一次executeScript,BooleanSupplier条件在JVM中单独求值
+ */
+@Getter
+public class WaitCondition {
+    private String name;
+    /**
+     * `function(){...}`形式的JS表达式,为null时使用supplier
+     */
+    private String javaScript;
+    private BooleanSupplier supplier;
+
+    private WaitCondition(String name, String javaScript, BooleanSupplier supplier) {
+        Assert.notBlank(name, "not specified condition name");
+        this.name = name;
+        this.javaScript = javaScript;
+        this.supplier = supplier;
+    }
+
+    /**
+     * 指定元素已出现;无法编译为JS的定位器退化为supplier条件(需要单独的WebDriver调用)
+     */
+    public static WaitCondition locator(String name, By locator, ChromeEngine chromeEngine) {
+        try {
+            return new WaitCondition(name, "function(){return (" + Locators.toJs(locator) + ")(document).length>0;}", null);
+        } catch (UnsupportedOperationException e) {
+            return new WaitCondition(name, null, () -> !chromeEngine.getDriver().findElements(locator).isEmpty());
+        }
+    }
+
+    /**
+     * 自定义JS脚本,返回真值即成立
+     */
+    public static WaitCondition javaScript(String name, String javaScript) {
+        return new WaitCondition(name, "function(){return !!(function(){" + StrUtil.addPrefixIfNot(javaScript, "return ") + "})();}", null);
+    }
+
+    public static WaitCondition supplier(String name, BooleanSupplier supplier) {
+        Assert.notNull(supplier, "not specified supplier of condition:[{}]", name);
+        return new WaitCondition(name, null, supplier);
+    }
+
+    public boolean isJavaScript() {
+        return javaScript != null;
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 组合等待的结果:是否满足、各条件成立的时刻(相对等待开始,按成立顺序),以及求值时最后一次抛出的异常
+ */
+@Getter
+public class WaitResult {
+    private boolean satisfied;
+    private long durationMs;
+    private final Map<String, Long> firedAtMs = new LinkedHashMap<>();
+    private final Map<String, Throwable> lastErrors = new LinkedHashMap<>();
+
+    void fire(String name, long elapsedMs) {
+        firedAtMs.putIfAbsent(name, elapsedMs);
+    }
+
+    void error(String name, Throwable e) {
+        lastErrors.put(name, e);
+    }
+
+    void finish(boolean satisfied, long durationMs) {
+        this.satisfied = satisfied;
+        this.durationMs = durationMs;
+    }
+
+    public boolean isFired(String name) {
+        return firedAtMs.containsKey(name);
+    }
+
+    /**
+     * 最先成立的条件名,都未成立时为null
+     */
+    public String getFirst() {
+        return firedAtMs.isEmpty() ? null : firedAtMs.keySet().iterator().next();
+    }
+
+    public List<String> getFired() {
+        return new ArrayList<>(firedAtMs.keySet());
+    }
+}
@@ -3,21 +3,54 @@ package io.github.windymengtool.seleniumcopilot;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.date.TimeInterval;
 import cn.hutool.core.lang.Assert;
-import cn.hutool.core.thread.ThreadUtil;
-import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.BooleanUtil;
 import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Getter
 public class Waiter {
+    private static final long DOM_STABLE_SCRIPT_TIMEOUT_SLACK_MS = 2000L;
+    /**
+     * arguments: quietMs, timeoutMs, callback;最近一次变化后quietMs内无变化回调true,超时回调false
+     */
+    private static final String DOM_STABLE_SCRIPT = "var callback=arguments[arguments.length-1],quietMs=arguments[0],timeoutMs=arguments[1];"
+            + "var done=false,quiet=null,timer=null,observer=null;"
+            + "function finish(r){if(done){return;}done=true;observer.disconnect();clearTimeout(quiet);clearTimeout(timer);callback(r);}"
+            + "function rearm(){clearTimeout(quiet);quiet=setTimeout(function(){finish(true);},quietMs);}"
+            + "observer=new MutationObserver(rearm);observer.observe(document.documentElement||document,{childList:true,subtree:true,attributes:true,characterData:true});"
+            + "timer=setTimeout(function(){finish(false);},timeoutMs);rearm();";
     private ChromeEngine chromeEngine;
     private String logPrefix = getDefaultLogPrefix();
     private Long maxMs;
+    /**
+     * 固定轮询间隔;未指定时使用pollingStrategy或ChromeEngine上的默认轮询策略
+     */
     private Long intervalMs;
+    private PollingStrategy pollingStrategy;
+    /**
+     * 显式设置logPrefix后作为指标的tag
+     */
+    private String metricsTag;
+    /**
+     * 最近一次等待的耗时
+     */
+    private long durationMs;
     private Consumer<Waiter> consumerBeforeWait = getDefaultBeforeWaitConsumer();
     private Consumer<Waiter> consumerAfterWait = getDefaultAfterWaitConsumer();
 
@@ -25,6 +58,12 @@ public class Waiter {
         this.chromeEngine = chromeEngine;
     }
 
+    public Waiter logPrefix(String logPrefix) {
+        this.logPrefix = logPrefix;
+        this.metricsTag = logPrefix;
+        return this;
+    }
+
     public Waiter maxMs(Long maxMs) {
         this.maxMs = maxMs;
         return this;
@@ -35,6 +74,11 @@ public class Waiter {
         return this;
     }
 
+    public Waiter pollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+        return this;
+    }
+
     public Waiter consumerBeforeWait(Consumer<Waiter> consumerBeforeWait) {
         this.consumerBeforeWait = consumerBeforeWait;
         return this;
@@ -46,26 +90,190 @@ public class Waiter {
     }
 
     public boolean until(BooleanSupplier booleanSupplier) {
-        maxMs = maxMs == null || maxMs < 10000 ? 10000 : maxMs;
-        intervalMs = intervalMs == null || intervalMs < 1000 ? 1000 : intervalMs;
-        Assert.isTrue(maxMs > intervalMs, "maxMs must be greater than intervalMs");
-        boolean result = false;
+        Poller poller = prepare();
+        TimeInterval timer = DateUtil.timer();
+        Optional.ofNullable(consumerBeforeWait).ifPresent(consumer -> consumer.accept(this));
+        boolean result = poller.poll(() -> probe(booleanSupplier));
+        afterWait("wait", poller.getAttempts().get(), timer, result);
+        return result;
+    }
+
+    /**
+     * 异步等待,不占用调用线程:探测在ChromeEngine的执行器上执行,共享调度线程池只负责计时;取消返回的future即停止轮询
+     */
+    public CompletableFuture<Boolean> untilAsync(BooleanSupplier booleanSupplier) {
+        Poller poller = prepare().executor(chromeEngine.getExecutor());
+        TimeInterval timer = DateUtil.timer();
+        Optional.ofNullable(consumerBeforeWait).ifPresent(consumer -> consumer.accept(this));
+        CompletableFuture<Boolean> future = poller.pollAsync(() -> probe(booleanSupplier));
+        future.whenComplete((result, e) -> afterWait("wait", poller.getAttempts().get(), timer, BooleanUtil.isTrue(result)));
+        return future;
+    }
+
+    /**
+     * 等待网络空闲:进行中的请求不超过maxInflight,且持续idleMs没有请求开始或结束;
+     * 由DevTools的Network事件驱动,不轮询.首次使用时才开始跟踪请求,如需覆盖整个页面加载应在跳转前调用{@link ChromeEngine#networkTracker()}
+     */
+    public boolean untilNetworkIdle(long idleMs, int maxInflight) {
+        prepare();
+        NetworkTracker tracker = chromeEngine.networkTracker();
+        TimeInterval timer = DateUtil.timer();
+        Optional.ofNullable(consumerBeforeWait).ifPresent(consumer -> consumer.accept(this));
+        boolean result;
+        try {
+            result = tracker.awaitIdle(idleMs, Math.max(0, maxInflight), maxMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = false;
+        }
+        afterWait("wait.networkIdle", 1, timer, result);
+        return result;
+    }
+
+    /**
+     * 等待DOM稳定:页面内的MutationObserver持续quietMs没有观察到变化;只需一次异步脚本调用.
+     * 等待期间按maxMs临时调整当前会话的scriptTimeout,结束后恢复
+     */
+    public boolean untilDomStable(long quietMs) {
+        prepare();
         TimeInterval timer = DateUtil.timer();
         Optional.ofNullable(consumerBeforeWait).ifPresent(consumer -> consumer.accept(this));
-        do {
+        boolean result;
+        try {
+            WebDriver driver = chromeEngine.getDriver();
+            WebDriver.Timeouts timeouts = driver.manage().timeouts();
+            Duration previousTimeout = timeouts.getScriptTimeout();
+            timeouts.scriptTimeout(Duration.ofMillis(maxMs + DOM_STABLE_SCRIPT_TIMEOUT_SLACK_MS));
             try {
-                boolean asBoolean = booleanSupplier.getAsBoolean(); // 如果想打印异常日志,用户需要自己在booleanSupplier中打印
-                if (asBoolean) {
-                    result = true;
-                    break;
+                result = Boolean.TRUE.equals(((JavascriptExecutor) driver).executeAsyncScript(DOM_STABLE_SCRIPT, quietMs, maxMs));
+            } finally {
+                timeouts.scriptTimeout(previousTimeout);
+            }
+        } catch (Exception e) {
+            result = false; // 例如等待期间页面跳转
+        }
+        afterWait("wait.domStable", 1, timer, result);
+        return result;
+    }
+
+    /**
+     * 任一条件成立即返回
+     */
+    public WaitResult untilAny(WaitCondition... conditions) {
+        return untilComposite(CompositeEnum.ANY, conditions);
+    }
+
+    /**
+     * 所有条件都成立过即返回(已成立的条件不再求值)
+     */
+    public WaitResult untilAll(WaitCondition... conditions) {
+        return untilComposite(CompositeEnum.ALL, conditions);
+    }
+
+    /**
+     * 条件按顺序依次成立:只有前一个条件成立后,后一个条件才会被认可
+     */
+    public WaitResult untilSequence(WaitCondition... conditions) {
+        return untilComposite(CompositeEnum.SEQUENCE, conditions);
+    }
+
+    /**
+     * 每轮把待求值的JS条件合并为一次executeScript,supplier条件按需求值;结果一旦确定立即返回.
+     * 求值异常视为不成立,最后一次异常记录在{@link WaitResult#getLastErrors()}中
+     */
+    private WaitResult untilComposite(CompositeEnum compositeEnum, WaitCondition[] conditions) {
+        Assert.notEmpty(conditions, "not specified conditions");
+        Assert.isTrue(Arrays.stream(conditions).map(WaitCondition::getName).distinct().count() == conditions.length, "condition names must be unique");
+        Poller poller = prepare();
+        StringBuilder script = new StringBuilder("var c=[");
+        for (WaitCondition condition : conditions) {
+            script.append(condition.isJavaScript() ? condition.getJavaScript() : "null").append(",");
+        }
+        script.append("null],idx=arguments[0],out=[];")
+                .append("for(var i=0;i<idx.length;i++){try{out.push(!!c[idx[i]]());}catch(e){out.push(String(e&&e.message||e));}}return out;");
+        WaitResult waitResult = new WaitResult();
+        int[] cursor = {0};
+        TimeInterval timer = DateUtil.timer();
+        Optional.ofNullable(consumerBeforeWait).ifPresent(consumer -> consumer.accept(this));
+        boolean result = poller.poll(() -> {
+            // 1.1 本轮待求值的条件
+            List<Integer> pending = new ArrayList<>();
+            for (int i = compositeEnum == CompositeEnum.SEQUENCE ? cursor[0] : 0; i < conditions.length; i++) {
+                if (!waitResult.isFired(conditions[i].getName())) pending.add(i);
+            }
+            // 1.2 JS条件一次求值
+            Map<Integer, Boolean> values = new HashMap<>();
+            List<Integer> scripts = pending.stream().filter(i -> conditions[i].isJavaScript()).collect(Collectors.toList());
+            if (!scripts.isEmpty()) {
+                try {
+                    List<Object> out = (List<Object>) ((JavascriptExecutor) chromeEngine.getDriver()).executeScript(script.toString(), scripts);
+                    for (int k = 0; k < scripts.size(); k++) {
+                        Object value = out.get(k);
+                        if (!(value instanceof Boolean)) waitResult.error(conditions[scripts.get(k)].getName(), new JavascriptException(String.valueOf(value)));
+                        values.put(scripts.get(k), Boolean.TRUE.equals(value));
+                    }
+                } catch (Exception e) {
+                    scripts.forEach(i -> waitResult.error(conditions[i].getName(), e));
                 }
-                ThreadUtil.safeSleep(intervalMs);
-            } catch (Exception e) {
-                // ignore
             }
-        } while (NumberUtil.compare(timer.intervalMs(), maxMs) <= 0);
+            // 1.3 按组合方式判定,supplier条件只在需要时求值
+            for (int i : pending) {
+                boolean value = conditions[i].isJavaScript() ? values.getOrDefault(i, false) : evaluate(conditions[i], waitResult);
+                if (value) {
+                    waitResult.fire(conditions[i].getName(), timer.intervalMs());
+                    if (compositeEnum == CompositeEnum.ANY) return true;
+                    if (compositeEnum == CompositeEnum.SEQUENCE) cursor[0] = i + 1;
+                } else if (compositeEnum == CompositeEnum.SEQUENCE) {
+                    return false;
+                }
+            }
+            return compositeEnum != CompositeEnum.ANY && waitResult.getFiredAtMs().size() == conditions.length;
+        });
+        waitResult.finish(result, timer.intervalMs());
+        afterWait(StrUtil.format("wait.{}", compositeEnum.name().toLowerCase()), poller.getAttempts().get(), timer, result);
+        return waitResult;
+    }
+
+    private static boolean evaluate(WaitCondition condition, WaitResult waitResult) {
+        try {
+            return condition.getSupplier().getAsBoolean();
+        } catch (Exception e) {
+            waitResult.error(condition.getName(), e);
+            return false;
+        }
+    }
+
+    private Poller prepare() {
+        maxMs = maxMs == null || maxMs < 0 ? 10000 : maxMs;
+        intervalMs = intervalMs == null || intervalMs < 0 ? null : intervalMs;
+        Assert.isTrue(intervalMs == null || maxMs > intervalMs, "maxMs must be greater than intervalMs");
+        return new Poller(resolvePollingStrategy(), maxMs);
+    }
+
+    private static boolean probe(BooleanSupplier booleanSupplier) {
+        try {
+            return booleanSupplier.getAsBoolean(); // 如果想打印异常日志,用户需要自己在booleanSupplier中打印
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void afterWait(String operation, int iterations, TimeInterval timer, boolean result) {
+        this.durationMs = timer.intervalMs();
+        MetricsSink sink = chromeEngine.getMetricsSink();
+        sink.recordLatency(operation, metricsTag, durationMs);
+        sink.increment(operation + ".iterations", metricsTag, iterations);
+        if (!result) sink.increment(operation + ".timeouts", metricsTag);
         Optional.ofNullable(consumerAfterWait).ifPresent(consumer -> consumer.accept(this));
-        return result;
+    }
+
+    /**
+     * 优先级:pollingStrategy > intervalMs(固定间隔) > ChromeEngine默认策略
+     */
+    private PollingStrategy resolvePollingStrategy() {
+        if (pollingStrategy != null) return pollingStrategy;
+        if (intervalMs != null) return PollingStrategy.fixed(intervalMs);
+        return chromeEngine.getPollingStrategy();
     }
 
     private String getDefaultLogPrefix() {
@@ -74,13 +282,24 @@ public class Waiter {
 
     private Consumer<Waiter> getDefaultBeforeWaitConsumer() {
         return waiter -> {
-            System.out.println(StrUtil.format("[{}]-等待开始...", waiter.getLogPrefix()));
+            CopilotLogger.info(() -> StrUtil.format("[{}]-等待开始...", waiter.getLogPrefix()));
         };
     }
 
     private Consumer<Waiter> getDefaultAfterWaitConsumer() {
         return waiter -> {
-            System.out.println(StrUtil.format("[{}]-等待结束", waiter.getLogPrefix()));
+            CopilotLogger.info(() -> StrUtil.format("[{}]-等待结束", waiter.getLogPrefix()));
         };
     }
+
+    @AllArgsConstructor
+    public enum CompositeEnum {
+        ANY(1, "任一条件成立", "any"),
+        ALL(2, "所有条件成立", "all"),
+        SEQUENCE(3, "条件依次成立", "sequence"),
+        ;
+        private Integer code;
+        private String zhLabel;
+        private String enLabel;
+    }
 }
\ No newline at end of file
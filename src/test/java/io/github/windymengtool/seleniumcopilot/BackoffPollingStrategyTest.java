@@ -0,0 +1,46 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackoffPollingStrategyTest {
+
+    @Test
+    void growsExponentiallyUpToMaxInterval() {
+        BackoffPollingStrategy strategy = PollingStrategy.backoff().jitter(0D);
+        assertEquals(10L, strategy.nextDelayMs(1, 0L, 10000L));
+        assertEquals(50L, strategy.nextDelayMs(2, 0L, 10000L));
+        assertEquals(100L, strategy.nextDelayMs(3, 0L, 10000L));
+        assertEquals(200L, strategy.nextDelayMs(4, 0L, 10000L));
+        assertEquals(1000L, strategy.nextDelayMs(10, 0L, 10000L));
+        assertEquals(1000L, strategy.nextDelayMs(1000, 0L, 10000L));
+    }
+
+    @Test
+    void truncatesToRemainingTime() {
+        BackoffPollingStrategy strategy = PollingStrategy.backoff().jitter(0D);
+        assertEquals(30L, strategy.nextDelayMs(10, 9970L, 10000L));
+        assertEquals(0L, strategy.nextDelayMs(10, 10000L, 10000L));
+        assertEquals(0L, strategy.nextDelayMs(10, 12000L, 10000L));
+    }
+
+    @Test
+    void jitterStaysWithinSpread() {
+        BackoffPollingStrategy strategy = PollingStrategy.backoff().jitter(0.2D);
+        for (int i = 0; i < 1000; i++) {
+            long delay = strategy.nextDelayMs(3, 0L, 10000L);
+            assertTrue(delay >= 80L && delay <= 120L, "delay out of range: " + delay);
+        }
+        assertEquals(10L, strategy.nextDelayMs(1, 0L, 10000L));
+    }
+
+    @Test
+    void fixedIsTruncatedToRemainingTime() {
+        PollingStrategy strategy = PollingStrategy.fixed(500L);
+        assertEquals(500L, strategy.nextDelayMs(1, 0L, 10000L));
+        assertEquals(500L, strategy.nextDelayMs(7, 1000L, 10000L));
+        assertEquals(200L, strategy.nextDelayMs(7, 9800L, 10000L));
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ElementCacheTest {
+    private static final By ROWS = By.cssSelector("tr");
+
+    /**
+     * 窗口句柄 -> 页面中的代次标记
+     */
+    private final Map<String, Object> marks = new HashMap<>();
+    private String window = "main";
+    private ElementCache cache;
+
+    @BeforeEach
+    void setUp() {
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("executeScript")) throw new UnsupportedOperationException(method.getName());
+            String script = (String) args[0];
+            if (script.startsWith("if(!window.__copilotGeneration)")) marks.putIfAbsent(window, ((Object[]) args[1])[0]);
+            return marks.get(window);
+        });
+        cache = new ChromeEngine(ChromeProperties.builder().build(), driver).getElementCache().verifyIntervalMs(0L);
+    }
+
+    @Test
+    void findOneAndFindListAreCachedSeparately() {
+        List<WebElement> all = Arrays.asList(element(), element(), element());
+        cache.put(ElementCache.key(Finder.FindTypeEnum.ONE, ROWS), all.subList(0, 1));
+        assertNull(cache.get(ElementCache.key(Finder.FindTypeEnum.LIST, ROWS)));
+        cache.put(ElementCache.key(Finder.FindTypeEnum.LIST, ROWS), all);
+        assertEquals(1, cache.get(ElementCache.key(Finder.FindTypeEnum.ONE, ROWS)).size());
+        assertEquals(3, cache.get(ElementCache.key(Finder.FindTypeEnum.LIST, ROWS)).size());
+    }
+
+    @Test
+    void newDocumentInvalidatesEntries() {
+        String key = ElementCache.key(Finder.FindTypeEnum.LIST, ROWS);
+        cache.put(key, Arrays.asList(element()));
+        assertEquals(1, cache.get(key).size());
+        marks.clear(); // navigated: the new document has no generation mark
+        assertNull(cache.get(key));
+        assertEquals(1L, cache.getInvalidations().get());
+        // the next write marks the new document
+        cache.put(key, Arrays.asList(element(), element()));
+        assertEquals(2, cache.get(key).size());
+    }
+
+    @Test
+    void verifyIntervalSkipsTheBrowser() {
+        cache.verifyIntervalMs(60000L);
+        String key = ElementCache.key(Finder.FindTypeEnum.LIST, ROWS);
+        cache.put(key, Arrays.asList(element()));
+        marks.clear();
+        assertEquals(1, cache.get(key).size());
+        cache.invalidate();
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void windowsHaveSeparateEntries() {
+        String key = ElementCache.key(Finder.FindTypeEnum.LIST, ROWS);
+        window = "tab-1";
+        cache.scope("tab-1").put(key, Arrays.asList(element()));
+        window = "tab-2";
+        assertNull(cache.scope("tab-2").get(key));
+        cache.put(key, Arrays.asList(element(), element()));
+        window = "tab-1";
+        assertEquals(1, cache.scope("tab-1").get(key).size());
+        cache.drop("tab-2");
+        window = "tab-2";
+        assertNull(cache.scope("tab-2").get(key));
+        assertEquals(1D / 3, cache.getHitRate(), 0.001D);
+    }
+
+    private static WebElement element() {
+        return (WebElement) Proxy.newProxyInstance(ElementCacheTest.class.getClassLoader(), new Class[]{WebElement.class}, (proxy, method, args) -> {
+            if (method.getName().equals("equals")) return proxy == args[0];
+            if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EngineGovernorTest {
+
+    @Test
+    void parsesParentPidFromStat() {
+        assertEquals(1234, EngineGovernor.parseParentPid("4321 (chrome) S 1234 4321 4321 0 -1 4194560 ..."));
+        // 进程名中可能包含空格与括号
+        assertEquals(77, EngineGovernor.parseParentPid("88 (Web Content (x)) R 77 88 88 0 -1"));
+    }
+
+    @Test
+    void splitsCmdlineOnNul() {
+        byte[] cmdline = "/opt/chrome\0--user-data-dir=/tmp/user data/slot-1\0--no-first-run\0".getBytes(StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("/opt/chrome", "--user-data-dir=/tmp/user data/slot-1", "--no-first-run"), EngineGovernor.parseCmdline(cmdline));
+        assertEquals(Collections.emptyList(), EngineGovernor.parseCmdline(new byte[0]));
+    }
+
+    @Test
+    void matchesBrowserByExactUserDataDir() {
+        List<String> slot1 = Arrays.asList("/opt/chrome", "--user-data-dir=/data/slot-1");
+        List<String> slot10 = Arrays.asList("/opt/chrome", "--user-data-dir=/data/slot-10");
+        List<String> renderer = Arrays.asList("/opt/chrome", "--type=renderer", "--user-data-dir=/data/slot-1");
+        assertTrue(EngineGovernor.isBrowserProcess(slot1, "/data/slot-1"));
+        assertFalse(EngineGovernor.isBrowserProcess(slot10, "/data/slot-1"));
+        assertFalse(EngineGovernor.isBrowserProcess(renderer, "/data/slot-1"));
+    }
+
+    @Test
+    void parsesVmRss() {
+        assertEquals(204800L * 1024L, EngineGovernor.parseVmRssBytes(Arrays.asList("Name:\tchrome", "VmPeak:\t  999999 kB", "VmRSS:\t  204800 kB", "Threads:\t12")));
+        assertEquals(0L, EngineGovernor.parseVmRssBytes(Arrays.asList("Name:\tkthreadd", "Threads:\t1")));
+    }
+}
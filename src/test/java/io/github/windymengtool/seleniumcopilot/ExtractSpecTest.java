@@ -0,0 +1,47 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.map.MapUtil;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExtractSpecTest {
+    private final ExtractSpec spec = ExtractSpec.rows(By.className("row"))
+            .text("name", By.className("name"))
+            .attr("link", By.id("go"), "href")
+            .text("label", By.name("label"));
+
+    @Test
+    void classNameRowCompilesToScript() {
+        String script = spec.toScript();
+        assertTrue(script.contains("querySelectorAll(\".row\")"));
+        assertTrue(script.contains("querySelectorAll(\".name\")"));
+        assertTrue(script.contains("querySelectorAll(\"#go\")"));
+        assertTrue(script.contains("querySelectorAll(\"*[name=\\\"label\\\"]\")"));
+    }
+
+    @Test
+    void finderExtractsClassNameRows() {
+        List<String> scripts = new ArrayList<>();
+        Map<String, Object> row = MapUtil.of("name", "a");
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("executeScript")) throw new UnsupportedOperationException(method.getName());
+            scripts.add((String) args[0]);
+            return Collections.singletonList(row);
+        });
+        ChromeEngine chromeEngine = new ChromeEngine(ChromeProperties.builder().build(), driver);
+        List<Map<String, Object>> rows = chromeEngine.finder().throwEx(true).maxMs(1000L).extract(spec);
+        assertEquals(Collections.singletonList(row), rows);
+        assertEquals(Collections.singletonList(spec.toScript()), scripts);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FinderCursorTest {
+    private final List<String> opened = new ArrayList<>();
+    private ChromeEngine chromeEngine;
+
+    @BeforeEach
+    void setUp() {
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("executeScript")) throw new UnsupportedOperationException(method.getName());
+            String script = (String) args[0];
+            if (script.startsWith("var st=window.__copilotCursors")) {
+                opened.add(script);
+                return 3L;
+            }
+            if (script.startsWith("var c=")) return Arrays.asList("a", "b", "c").subList((int) ((Object[]) args[1])[1], 3);
+            return null;
+        });
+        chromeEngine = new ChromeEngine(ChromeProperties.builder().build(), driver);
+    }
+
+    @Test
+    void streamOpensCursorForIdLocator() {
+        try (FinderCursor<?> cursor = chromeEngine.finder().byLocator(By.id("list")).maxMs(1000L).stream()) {
+            assertEquals(3, cursor.getTotal());
+            assertEquals(3L, cursor.stream().count());
+        }
+        assertEquals(1, opened.size());
+        assertTrue(opened.get(0).contains("querySelectorAll(\"#list\")"));
+    }
+
+    @Test
+    void streamSpecOpensCursorForClassNameRows() {
+        ExtractSpec spec = ExtractSpec.rows(By.className("row")).text("name", By.name("title"));
+        try (FinderCursor<Map<String, Object>> cursor = chromeEngine.finder().maxMs(1000L).stream(spec)) {
+            assertEquals(3, cursor.getTotal());
+        }
+        assertTrue(opened.get(0).contains("querySelectorAll(\".row\")"));
+    }
+}
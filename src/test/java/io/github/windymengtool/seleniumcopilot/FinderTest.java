@@ -0,0 +1,44 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.map.MapUtil;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FinderTest {
+    private static final long MAX_MS = 10 * 1000L;
+
+    @Test
+    void optionalKeyDoesNotBlockBatch() {
+        WebElement title = (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebElement.class}, (proxy, method, args) -> null);
+        Map<String, Object> found = MapUtil.<String, Object>builder()
+                .put("title", Collections.singletonList(title))
+                .put("banner", new ArrayList<>())
+                .build();
+        WebDriver driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+            if (!method.getName().equals("executeScript")) throw new UnsupportedOperationException(method.getName());
+            return found;
+        });
+        Map<String, By> locators = new LinkedHashMap<>();
+        locators.put("title", By.id("title"));
+        locators.put("banner", By.className("banner"));
+        long started = System.currentTimeMillis();
+        Map<String, List<WebElement>> result = new ChromeEngine(ChromeProperties.builder().build(), driver).finder()
+                .maxMs(MAX_MS).atLeast("banner", 0).findAll(locators);
+        assertTrue(System.currentTimeMillis() - started < MAX_MS);
+        assertEquals(1, result.get("title").size());
+        assertEquals(0, result.get("banner").size());
+    }
+}
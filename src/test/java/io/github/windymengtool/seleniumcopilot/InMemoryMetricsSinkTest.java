@@ -0,0 +1,72 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryMetricsSinkTest {
+
+    @Test
+    void smallValuesAreExact() {
+        for (long v = 0; v < 32; v++) {
+            int index = InMemoryMetricsSink.Histogram.index(v);
+            assertEquals(v, InMemoryMetricsSink.Histogram.upperBound(index));
+        }
+    }
+
+    @Test
+    void bucketsBoundTheirValuesWithinRelativeError() {
+        long[] values = {32L, 33L, 63L, 64L, 100L, 1000L, 12345L, 999999L, Long.MAX_VALUE / 3};
+        for (long v : values) {
+            long upper = InMemoryMetricsSink.Histogram.upperBound(InMemoryMetricsSink.Histogram.index(v));
+            assertTrue(upper >= v, "upper bound below value: " + v);
+            assertTrue((upper - v) <= v / 32 + 1, "relative error too large for " + v + ": " + upper);
+        }
+    }
+
+    @Test
+    void percentilesOfUniformValues() {
+        InMemoryMetricsSink.Histogram histogram = new InMemoryMetricsSink.Histogram();
+        for (long v = 1; v <= 1000; v++) histogram.record(v);
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(1000L, latency.getCount());
+        assertEquals(1L, latency.getMin());
+        assertEquals(1000L, latency.getMax());
+        assertEquals(500.5D, latency.getMean(), 0.001D);
+        assertNear(500L, latency.getP50());
+        assertNear(900L, latency.getP90());
+        assertNear(990L, latency.getP99());
+        assertEquals(1000L, latency.getP999());
+    }
+
+    @Test
+    void percentilesNeverExceedMax() {
+        InMemoryMetricsSink.Histogram histogram = new InMemoryMetricsSink.Histogram();
+        histogram.record(33L);
+        histogram.record(-5L);
+        MetricsSnapshot.Latency latency = histogram.snapshot();
+        assertEquals(0L, latency.getMin());
+        assertEquals(33L, latency.getMax());
+        assertEquals(33L, latency.getP99());
+        assertEquals(0L, latency.getP50());
+    }
+
+    @Test
+    void snapshotKeysByNameAndTag() {
+        InMemoryMetricsSink sink = new InMemoryMetricsSink();
+        sink.recordLatency("find", null, 10L);
+        sink.recordLatency("find", "login", 20L);
+        sink.increment("find.iterations", "login", 3L);
+        sink.increment("find.iterations", "login", 2L);
+        MetricsSnapshot snapshot = sink.snapshot();
+        assertEquals(1L, snapshot.getLatencies().get("find").getCount());
+        assertEquals(20L, snapshot.getLatencies().get("find{login}").getMax());
+        assertEquals(5L, snapshot.getCounters().get("find.iterations{login}"));
+        assertEquals(0L, new InMemoryMetricsSink().snapshot().getCounters().size());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 32 + 1, "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,30 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LocatorsTest {
+    @Test
+    void idNameAndClassNameCompileToQuerySelectorAll() {
+        assertEquals(selectorAll("#main"), Locators.toJs(By.id("main")));
+        assertEquals(selectorAll("*[name=\\\"q\\\"]"), Locators.toJs(By.name("q")));
+        assertEquals(selectorAll(".row"), Locators.toJs(By.className("row")));
+        assertEquals(selectorAll("td"), Locators.toJs(By.tagName("td")));
+    }
+
+    @Test
+    void rewrittenSelectorsAreEscaped() {
+        assertEquals("#\\31 0", Locators.toCss("id", "10", Locators::escapeCssIdentifier));
+        assertEquals("#a\\.b", Locators.toCss("id", "a.b", Locators::escapeCssIdentifier));
+        assertEquals("*[name=\"a\\\"b\"]", Locators.toCss("name", "a\"b", Locators::escapeCssIdentifier));
+        assertEquals(".a\\:b", Locators.toCss("class name", "a:b", Locators::escapeCssIdentifier));
+        assertNull(Locators.toCss("xpath", "//a", Locators::escapeCssIdentifier));
+    }
+
+    private static String selectorAll(String quotedCss) {
+        return "function(root){return Array.prototype.slice.call(root.querySelectorAll(\"" + quotedCss + "\"));}";
+    }
+}
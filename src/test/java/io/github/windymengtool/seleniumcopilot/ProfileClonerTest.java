@@ -0,0 +1,107 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.io.FileUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfileClonerTest {
+    @TempDir
+    Path temp;
+
+    @Test
+    void clonesWithoutCachesAndRuntimeFiles() throws Exception {
+        File source = source();
+        try (ProfileCloner.ProfileClone clone = cloner(source).acquire()) {
+            File dir = clone.getDir();
+            assertEquals("prefs", FileUtil.readUtf8String(new File(dir, "Default/Preferences")));
+            assertTrue(new File(dir, "Local State").exists());
+            assertFalse(new File(dir, "Default/Cache").exists());
+            assertFalse(new File(dir, "SingletonLock").exists());
+            assertTrue(Files.isSameFile(new File(source, "Default/Extensions/ext/main.js").toPath(), new File(dir, "Default/Extensions/ext/main.js").toPath()));
+            assertEquals(2L, clone.getCopied().get());
+            assertEquals(1L, clone.getLinked().get());
+        }
+    }
+
+    @Test
+    void resyncCopiesOnlyChangesAndPrunesDeletedFiles() throws Exception {
+        File source = source();
+        ProfileCloner cloner = cloner(source);
+        File dir;
+        try (ProfileCloner.ProfileClone clone = cloner.acquire()) {
+            dir = clone.getDir();
+        }
+        // 槽位中的缓存(排除项)应在再次同步时保留
+        FileUtil.writeUtf8String("cached", new File(dir, "Default/Cache/data_0"));
+        File preferences = new File(source, "Default/Preferences");
+        FileUtil.writeUtf8String("prefs-v2", preferences);
+        Files.setLastModifiedTime(preferences.toPath(), FileTime.fromMillis(preferences.lastModified() + 5000L));
+        FileUtil.del(new File(source, "Local State"));
+        FileUtil.writeUtf8String("new", new File(source, "Default/Bookmarks"));
+        try (ProfileCloner.ProfileClone clone = cloner.acquire()) {
+            assertEquals(dir, clone.getDir());
+            assertEquals("prefs-v2", FileUtil.readUtf8String(new File(dir, "Default/Preferences")));
+            assertEquals("new", FileUtil.readUtf8String(new File(dir, "Default/Bookmarks")));
+            assertFalse(new File(dir, "Local State").exists());
+            assertTrue(new File(dir, "Default/Cache/data_0").exists());
+            assertEquals(2L, clone.getCopied().get());
+            assertEquals(1L, clone.getUnchanged().get());
+        }
+    }
+
+    @Test
+    void resyncLeavesUnchangedCopiesAlone() throws Exception {
+        File source = source();
+        // 亚毫秒精度的修改时间(ext4/xfs/btrfs)
+        Files.setLastModifiedTime(new File(source, "Default/Preferences").toPath(), FileTime.from(Instant.parse("2024-03-01T10:15:52.938000190Z")));
+        ProfileCloner cloner = cloner(source);
+        try (ProfileCloner.ProfileClone clone = cloner.acquire()) {
+            assertEquals(2L, clone.getCopied().get());
+        }
+        try (ProfileCloner.ProfileClone clone = cloner.acquire()) {
+            assertEquals(0L, clone.getCopied().get());
+            assertEquals(0L, clone.getLinked().get());
+            assertEquals(3L, clone.getUnchanged().get());
+        }
+    }
+
+    @Test
+    void concurrentClonesUseDifferentSlots() throws Exception {
+        ProfileCloner cloner = cloner(source());
+        try (ProfileCloner.ProfileClone first = cloner.acquire(); ProfileCloner.ProfileClone second = cloner.acquire()) {
+            assertNotEquals(first.getDir(), second.getDir());
+            assertEquals(0, first.getSlot());
+            assertEquals(1, second.getSlot());
+        }
+    }
+
+    private ProfileCloner cloner(File source) {
+        return new ProfileCloner(source.getAbsolutePath())
+                .root(temp.resolve("copies").toString())
+                .excludes(Collections.singletonList("Cache"))
+                .hardLinks(Arrays.asList("Default/Extensions"));
+    }
+
+    private File source() {
+        File source = temp.resolve("User Data").toFile();
+        FileUtil.writeUtf8String("prefs", new File(source, "Default/Preferences"));
+        FileUtil.writeUtf8String("state", new File(source, "Local State"));
+        FileUtil.writeUtf8String("cache", new File(source, "Default/Cache/data_0"));
+        FileUtil.writeUtf8String("lock", new File(source, "SingletonLock"));
+        FileUtil.writeUtf8String("ext", new File(source, "Default/Extensions/ext/main.js"));
+        return source;
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.thread.ThreadUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+    @TempDir
+    Path temp;
+
+    @Test
+    void storesAndServesBodies() {
+        ResponseCache cache = open(1000L);
+        store(cache, "https://example.com/a.js", "console.log(1)", 60000L);
+        ResponseCache.Entry entry = cache.lookup("https://example.com/a.js");
+        assertNotNull(entry);
+        assertEquals(200, entry.getStatus());
+        assertEquals("console.log(1)", text(cache.read(entry)));
+        assertNull(cache.lookup("https://example.com/b.js"));
+        assertEquals(0.5D, cache.getHitRate(), 0.001D);
+        assertSame(cache, ResponseCache.open(ResponseCacheRules.builder().dir(cache.getDir().getPath()).build()));
+    }
+
+    @Test
+    void identicalBodiesAreStoredOnce() {
+        ResponseCache cache = open(1000L);
+        store(cache, "https://a.example.com/lib.js", "0123456789", 60000L);
+        store(cache, "https://b.example.com/lib.js", "0123456789", 60000L);
+        assertEquals(1, Objects.requireNonNull(cache.getObjectsDir().list()).length);
+        assertEquals(2, Objects.requireNonNull(cache.getEntriesDir().list()).length);
+        assertEquals(10L, cache.getTotalBytes());
+    }
+
+    @Test
+    void expiredEntriesAreRemoved() {
+        ResponseCache cache = open(1000L);
+        store(cache, "https://example.com/a.css", "body{}", 1L);
+        ThreadUtil.safeSleep(20L);
+        assertNull(cache.lookup("https://example.com/a.css"));
+        assertEquals(0, Objects.requireNonNull(cache.getEntriesDir().list()).length);
+        assertEquals(0, Objects.requireNonNull(cache.getObjectsDir().list()).length);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOverBudget() {
+        ResponseCache cache = open(100L);
+        store(cache, "u1", repeat('1', 25), 60000L);
+        store(cache, "u2", repeat('2', 25), 60000L);
+        store(cache, "u3", repeat('3', 25), 60000L);
+        store(cache, "u4", repeat('4', 25), 60000L);
+        assertNotNull(cache.lookup("u1"));
+        store(cache, "u5", repeat('5', 25), 60000L);
+        assertNull(cache.lookup("u2"));
+        assertNotNull(cache.lookup("u1"));
+        assertNotNull(cache.lookup("u5"));
+        assertEquals(100L, cache.getTotalBytes());
+        assertEquals(1L, cache.getEvictions().get());
+        // 超过maxBytes的1/4的响应不缓存
+        assertTrue(cache.store("big", 200, new ArrayList<>(), new byte[26], 60000L));
+        assertNull(cache.lookup("big"));
+    }
+
+    @Test
+    void instancesOnTheSameDirectorySeeEachOthersChanges() throws Exception {
+        ResponseCache first = open(100L);
+        // 模拟另一个进程:同一目录上的独立实例
+        ResponseCache second = newInstance(first.getDir(), first.getRules());
+        store(first, "shared", repeat('s', 25), 60000L);
+        assertNotNull(second.lookup("shared"));
+        store(second, "v1", repeat('a', 25), 60000L);
+        store(second, "v2", repeat('b', 25), 60000L);
+        store(second, "v3", repeat('c', 25), 60000L);
+        store(second, "v4", repeat('d', 25), 60000L);
+        assertEquals(1L, second.getEvictions().get());
+        // second淘汰了first写入的条目;first再次修改时应先重新加载,按所有条目计算占用并淘汰
+        store(first, "v5", repeat('e', 25), 60000L);
+        assertEquals(100L, first.getTotalBytes());
+        assertEquals(1L, first.getEvictions().get());
+        assertNotNull(second.lookup("v5"));
+        assertEquals(4, Objects.requireNonNull(first.getEntriesDir().list()).length);
+        assertEquals(4, Objects.requireNonNull(first.getObjectsDir().list()).length);
+        for (ResponseCache.Entry entry : first.getIndex().values()) {
+            assertTrue(new File(first.getObjectsDir(), entry.getSha256()).exists(), entry.getKey());
+        }
+    }
+
+    private ResponseCache open(long maxBytes) {
+        return ResponseCache.open(ResponseCacheRules.builder().dir(temp.resolve("cache").toString()).maxBytes(maxBytes).build());
+    }
+
+    private static ResponseCache newInstance(File dir, ResponseCacheRules rules) throws Exception {
+        Constructor<ResponseCache> constructor = ResponseCache.class.getDeclaredConstructor(File.class, ResponseCacheRules.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(dir, rules);
+    }
+
+    /**
+     * 写入是异步的,等待写入完成
+     */
+    private static void store(ResponseCache cache, String key, String body, long ttlMs) {
+        long before = cache.getStores().get();
+        assertTrue(cache.store(key, 200, new ArrayList<>(), body.getBytes(StandardCharsets.UTF_8), ttlMs));
+        for (int i = 0; i < 500 && cache.getStores().get() == before; i++) ThreadUtil.safeSleep(10L);
+        assertEquals(before + 1, cache.getStores().get());
+    }
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer).toString();
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        java.util.Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionRecoveryTest {
+    @Test
+    void slowPageIsNotALostSession() {
+        assertFalse(SessionRecovery.isSessionLost(new TimeoutException("timeout: Timed out receiving message from renderer: 9.987")));
+        assertFalse(SessionRecovery.isSessionLost(new RuntimeException(new TimeoutException("timeout: Timed out receiving message from renderer: 30.000"))));
+    }
+
+    @Test
+    void lostSessionsAreRecognised() {
+        assertTrue(SessionRecovery.isSessionLost(new NoSuchSessionException("invalid session id")));
+        assertTrue(SessionRecovery.isSessionLost(new RuntimeException(new WebDriverException("chrome not reachable"))));
+        assertTrue(SessionRecovery.isSessionLost(new WebDriverException("unknown error: session deleted because of page crash")));
+        assertTrue(SessionRecovery.isSessionLost(new SessionLostException(new RuntimeException())));
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.windymengtool.seleniumcopilot;
+
+import cn.hutool.core.util.ReflectUtil;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TabSchedulerTest {
+    private static final long MAX_MS = 10 * 1000L;
+
+    private boolean sessionLost = false;
+    private boolean leaving = true;
+
+    @Test
+    void awaitReadySwallowsTransientErrors() {
+        TabScheduler.Tab tab = tab(new ChromeEngine(ChromeProperties.builder().build(), driver()));
+        assertFalse(tab.awaitReady(driver -> true, 50L));
+        leaving = false;
+        assertTrue(tab.awaitReady(driver -> true, 50L));
+    }
+
+    @Test
+    void awaitReadyFailsFastAfterRestart() {
+        ChromeEngine chromeEngine = new ChromeEngine(ChromeProperties.builder().build(), driver());
+        TabScheduler.Tab tab = tab(chromeEngine);
+        ReflectUtil.setFieldValue(chromeEngine, "sessionGeneration", chromeEngine.getSessionGeneration() + 1);
+        long started = System.currentTimeMillis();
+        assertThrows(SessionLostException.class, () -> tab.awaitReady(driver -> true, MAX_MS));
+        assertTrue(System.currentTimeMillis() - started < MAX_MS);
+    }
+
+    @Test
+    void awaitReadyFailsFastWhenSessionIsGone() {
+        TabScheduler.Tab tab = tab(new ChromeEngine(ChromeProperties.builder().build(), driver()));
+        sessionLost = true;
+        long started = System.currentTimeMillis();
+        assertThrows(SessionLostException.class, () -> tab.awaitReady(driver -> true, MAX_MS));
+        assertTrue(System.currentTimeMillis() - started < MAX_MS);
+    }
+
+    private TabScheduler.Tab tab(ChromeEngine chromeEngine) {
+        return new TabScheduler(chromeEngine).tabs(1).start().getTabList().get(0);
+    }
+
+    private WebDriver driver() {
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{WebDriver.class, JavascriptExecutor.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getWindowHandle":
+                    return "main";
+                case "executeScript":
+                    if (sessionLost) throw new NoSuchSessionException("invalid session id");
+                    if (!((String) args[0]).contains("__copilotLeaving")) throw new UnsupportedOperationException((String) args[0]);
+                    return leaving;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}